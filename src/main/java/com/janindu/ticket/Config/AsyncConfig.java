@@ -0,0 +1,42 @@
+package com.janindu.ticket.Config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * Small fixed pool that completes the async count, stats and purchase responses,
+     * so servlet request threads are released as soon as a request is accepted.
+     * Defaults to one thread per available processor. The queue is bounded; once it is full
+     * new tasks are rejected and the request is answered with 503.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor apiExecutor(@Value("${ticket.api.threads:0}") int threads,
+                                              @Value("${ticket.api.queue-capacity:1000}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return boundedExecutor("api-", poolSize, queueCapacity);
+    }
+
+    /**
+     * Separate pool for rendering the log, so a slow render of a full log ring
+     * cannot hold up count and purchase requests.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor logExecutor(@Value("${ticket.api.log-threads:1}") int threads,
+                                              @Value("${ticket.api.log-queue-capacity:16}") int queueCapacity) {
+        return boundedExecutor("api-log-", threads, queueCapacity);
+    }
+
+    private ThreadPoolTaskExecutor boundedExecutor(String threadNamePrefix, int poolSize, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        return executor;
+    }
+}
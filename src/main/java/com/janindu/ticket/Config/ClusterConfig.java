@@ -0,0 +1,26 @@
+package com.janindu.ticket.Config;
+
+import com.janindu.ticket.cluster.ClusterCoordinator;
+import com.janindu.ticket.cluster.InMemoryClusterCoordinator;
+import com.janindu.ticket.cluster.TicketPartition;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "ticket.cluster.enabled", havingValue = "true")
+public class ClusterConfig {
+
+    /**
+     * This node's partition. It uses the ClusterCoordinator bean if one is provided,
+     * otherwise an in-process coordinator that only shares inventory within this instance.
+     */
+    @Bean
+    public TicketPartition ticketPartition(ObjectProvider<ClusterCoordinator> clusterCoordinator,
+                                           @Value("${ticket.cluster.node-id:node-1}") String nodeId,
+                                           @Value("${ticket.cluster.claim-size:100}") long claimSize) {
+        return new TicketPartition(nodeId, clusterCoordinator.getIfAvailable(InMemoryClusterCoordinator::new), claimSize);
+    }
+}
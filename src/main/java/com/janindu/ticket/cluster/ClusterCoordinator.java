@@ -0,0 +1,56 @@
+package com.janindu.ticket.cluster;
+
+import java.util.Optional;
+
+/**
+ * ClusterCoordinator is the extension point for sharing one ticket inventory between nodes.
+ * Every ticket id is owned by at most one node at a time, and a range is only handed out
+ * again if its owner explicitly gave it back. A node that is lost keeps its ranges forever,
+ * so losing a node can undersell but never oversell.
+ */
+public interface ClusterCoordinator {
+
+    /**
+     * Initializes the shared inventory of a sale with ids 0 to totalTickets - 1.
+     * Further calls for the same sale leave the inventory untouched, so a node
+     * restarting during a sale cannot reset it. A call for a different sale starts over:
+     * the inventory is reset to the new size and every node has to join again.
+     *
+     * @param saleId       The id of the sale, such as the id of the saved configuration.
+     * @param totalTickets The size of the inventory.
+     */
+    void initialize(long saleId, long totalTickets);
+
+    /**
+     * Adds a node to the cluster.
+     *
+     * @param nodeId The id of the node.
+     * @param donor  Callback used to borrow unreleased inventory from the node.
+     */
+    void join(String nodeId, InventoryDonor donor);
+
+    /**
+     * Removes a node from the cluster. Inventory the node still owns is not reclaimed,
+     * so it should {@link #giveBack(String, TicketRange)} its ranges first.
+     *
+     * @param nodeId The id of the node.
+     */
+    void leave(String nodeId);
+
+    /**
+     * Claims a range of tickets for a node, from unissued inventory or by borrowing from another node.
+     *
+     * @param nodeId     The id of the claiming node.
+     * @param maxTickets The most tickets to claim.
+     * @return The claimed range, or empty if the inventory is sold out or the node is not a member.
+     */
+    Optional<TicketRange> claim(String nodeId, long maxTickets);
+
+    /**
+     * Returns unreleased tickets to the shared inventory. Ignored if the node is not a member.
+     *
+     * @param nodeId The id of the node giving the range back.
+     * @param range  The range being given back.
+     */
+    void giveBack(String nodeId, TicketRange range);
+}
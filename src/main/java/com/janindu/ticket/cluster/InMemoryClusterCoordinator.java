@@ -0,0 +1,108 @@
+package com.janindu.ticket.cluster;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-process ClusterCoordinator. It is the coordinator of a single instance,
+ * and lets tests run several nodes inside one JVM.
+ */
+public class InMemoryClusterCoordinator implements ClusterCoordinator {
+
+    private long saleId = -1; // Sale the inventory belongs to, -1 until initialized
+    private long totalTickets;
+    private long nextUnissued; // Lowest id that has never been handed out
+    private final Deque<TicketRange> returned = new ArrayDeque<>(); // Ranges given back by nodes
+    private final Map<String, InventoryDonor> members = new LinkedHashMap<>();
+
+    @Override
+    public synchronized void initialize(long saleId, long totalTickets) {
+        if (this.saleId == saleId) {
+            return;
+        }
+        // A new sale: ranges of the previous one are dropped, and members must join again
+        // so a node still holding them cannot give them back or lend them out.
+        this.saleId = saleId;
+        this.totalTickets = totalTickets;
+        nextUnissued = 0;
+        returned.clear();
+        members.clear();
+    }
+
+    @Override
+    public synchronized void join(String nodeId, InventoryDonor donor) {
+        members.put(nodeId, donor);
+    }
+
+    @Override
+    public synchronized void leave(String nodeId) {
+        members.remove(nodeId);
+    }
+
+    /**
+     * Simulates losing a node without a graceful leave.
+     * The node's ranges are never handed out again.
+     *
+     * @param nodeId The id of the lost node.
+     */
+    public synchronized void fail(String nodeId) {
+        members.remove(nodeId);
+    }
+
+    @Override
+    public synchronized Optional<TicketRange> claim(String nodeId, long maxTickets) {
+        if (!members.containsKey(nodeId) || maxTickets < 1) {
+            return Optional.empty();
+        }
+
+        // Reuse inventory that other nodes gave back first.
+        TicketRange range = returned.pollFirst();
+        if (range != null) {
+            if (range.size() > maxTickets) {
+                returned.addFirst(new TicketRange(range.getStart() + maxTickets, range.getEnd()));
+                range = new TicketRange(range.getStart(), range.getStart() + maxTickets);
+            }
+            return Optional.of(range);
+        }
+
+        // Then hand out inventory that has never been issued.
+        if (nextUnissued < totalTickets) {
+            long end = Math.min(totalTickets, nextUnissued + maxTickets);
+            range = new TicketRange(nextUnissued, end);
+            nextUnissued = end;
+            return Optional.of(range);
+        }
+
+        // Finally borrow half of what the richest other node has left.
+        return borrow(nodeId, maxTickets);
+    }
+
+    @Override
+    public synchronized void giveBack(String nodeId, TicketRange range) {
+        if (members.containsKey(nodeId)) {
+            returned.addLast(range);
+        }
+    }
+
+    private Optional<TicketRange> borrow(String nodeId, long maxTickets) {
+        InventoryDonor richest = null;
+        long richestRemaining = 0;
+        for (Map.Entry<String, InventoryDonor> member : members.entrySet()) {
+            if (member.getKey().equals(nodeId)) {
+                continue;
+            }
+            long remaining = member.getValue().remaining();
+            if (remaining > richestRemaining) {
+                richest = member.getValue();
+                richestRemaining = remaining;
+            }
+        }
+        if (richest == null) {
+            return Optional.empty();
+        }
+        return richest.surrender(Math.min(maxTickets, Math.max(1, richestRemaining / 2)));
+    }
+}
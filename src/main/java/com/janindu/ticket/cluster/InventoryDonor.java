@@ -0,0 +1,26 @@
+package com.janindu.ticket.cluster;
+
+import java.util.Optional;
+
+/**
+ * InventoryDonor is implemented by a node that owns ticket ranges,
+ * so the coordinator can move unreleased inventory to a node that has run out.
+ */
+public interface InventoryDonor {
+
+    /**
+     * Gets the number of owned tickets that have not been released yet.
+     *
+     * @return The remaining ticket count.
+     */
+    long remaining();
+
+    /**
+     * Gives up ownership of some unreleased tickets.
+     * Once returned, the donor must never release any id in the range.
+     *
+     * @param maxTickets The most tickets to give up.
+     * @return The surrendered range, or empty if nothing is left.
+     */
+    Optional<TicketRange> surrender(long maxTickets);
+}
@@ -0,0 +1,158 @@
+package com.janindu.ticket.cluster;
+
+import com.janindu.ticket.model.TicketSource;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * TicketPartition is the part of the shared inventory owned by this node.
+ * Vendors release ticket ids from the owned ranges, and more are claimed from
+ * the coordinator in blocks when they run out. The coordinator is never called
+ * while the partition lock is held, so two nodes borrowing from each other cannot deadlock.
+ */
+public class TicketPartition implements TicketSource, InventoryDonor {
+
+    private final String nodeId;
+    private final ClusterCoordinator coordinator;
+    private final long claimSize;
+
+    // Range currently being released, from next (inclusive) to end (exclusive).
+    private long next;
+    private long end;
+
+    // Further owned ranges waiting to be released.
+    private final Deque<TicketRange> ranges = new ArrayDeque<>();
+
+    private long saleId = -1; // Sale the owned ranges belong to
+
+    /**
+     * Constructor for TicketPartition.
+     *
+     * @param nodeId      The id of this node in the cluster.
+     * @param coordinator The coordinator that owns the shared inventory.
+     * @param claimSize   The number of tickets claimed from the coordinator at a time.
+     */
+    public TicketPartition(String nodeId, ClusterCoordinator coordinator, long claimSize) {
+        if (claimSize < 1) {
+            throw new IllegalArgumentException("Claim size must be at least 1");
+        }
+        this.nodeId = nodeId;
+        this.coordinator = coordinator;
+        this.claimSize = claimSize;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Joins the cluster for a sale, initializing the shared inventory if no other node has done so yet.
+     * Joining a different sale than before drops any ranges still owned from the previous one.
+     * The new sale reuses ids 0 to totalTickets - 1, so tickets of the previous sale that were
+     * released but not sold must be discarded by the caller.
+     *
+     * @param saleId       The id of the sale.
+     * @param totalTickets The size of the shared inventory.
+     * @return true if this node moved to a different sale, false if it rejoined the same one.
+     */
+    public boolean join(long saleId, long totalTickets) {
+        boolean newSale;
+        synchronized (this) {
+            newSale = this.saleId != saleId;
+            if (newSale) {
+                this.saleId = saleId;
+                next = 0;
+                end = 0;
+                ranges.clear();
+            }
+        }
+        coordinator.initialize(saleId, totalTickets);
+        coordinator.join(nodeId, this);
+        return newSale;
+    }
+
+    /**
+     * Gives every unreleased ticket back to the coordinator and leaves the cluster.
+     */
+    public void leave() {
+        List<TicketRange> owned = new ArrayList<>();
+        synchronized (this) {
+            if (next < end) {
+                owned.add(new TicketRange(next, end));
+                next = end;
+            }
+            owned.addAll(ranges);
+            ranges.clear();
+        }
+        owned.forEach(range -> coordinator.giveBack(nodeId, range));
+        coordinator.leave(nodeId);
+    }
+
+    @Override
+    public OptionalLong nextTicketId() {
+        while (true) {
+            synchronized (this) {
+                if (next < end) {
+                    return OptionalLong.of(next++);
+                }
+                TicketRange range = ranges.pollFirst();
+                if (range != null) {
+                    next = range.getStart();
+                    end = range.getEnd();
+                    continue;
+                }
+            }
+            Optional<TicketRange> claimed = coordinator.claim(nodeId, claimSize);
+            if (claimed.isEmpty()) {
+                return OptionalLong.empty();
+            }
+            synchronized (this) {
+                ranges.addLast(claimed.get());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void returnTicketId(long ticketId) {
+        // Released again before the rest of the owned ranges.
+        if (next < end) {
+            ranges.addFirst(new TicketRange(next, end));
+        }
+        next = ticketId;
+        end = ticketId + 1;
+    }
+
+    @Override
+    public synchronized long remaining() {
+        long remaining = end - next;
+        for (TicketRange range : ranges) {
+            remaining += range.size();
+        }
+        return remaining;
+    }
+
+    @Override
+    public synchronized Optional<TicketRange> surrender(long maxTickets) {
+        // Give up the tail of the last owned range, keeping the range being released for last.
+        TicketRange last = ranges.pollLast();
+        if (last != null) {
+            if (last.size() > maxTickets) {
+                ranges.addLast(new TicketRange(last.getStart(), last.getEnd() - maxTickets));
+                return Optional.of(new TicketRange(last.getEnd() - maxTickets, last.getEnd()));
+            }
+            return Optional.of(last);
+        }
+        if (next < end) {
+            long start = Math.max(next, end - maxTickets);
+            TicketRange surrendered = new TicketRange(start, end);
+            end = start;
+            return Optional.of(surrendered);
+        }
+        return Optional.empty();
+    }
+}
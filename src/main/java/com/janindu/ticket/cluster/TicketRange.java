@@ -0,0 +1,35 @@
+package com.janindu.ticket.cluster;
+
+/**
+ * TicketRange is a contiguous block of ticket ids, from start (inclusive) to end (exclusive).
+ */
+public final class TicketRange {
+
+    private final long start;
+    private final long end;
+
+    public TicketRange(long start, long end) {
+        if (start >= end) {
+            throw new IllegalArgumentException("Ticket range must not be empty: [" + start + ", " + end + ")");
+        }
+        this.start = start;
+        this.end = end;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public long size() {
+        return end - start;
+    }
+
+    @Override
+    public String toString() {
+        return "TicketRange[" + start + ", " + end + ")";
+    }
+}
@@ -0,0 +1,140 @@
+package com.janindu.ticket.controller;
+
+import com.janindu.ticket.model.StatsBucket;
+import com.janindu.ticket.model.TicketPool;
+import com.janindu.ticket.service.LoggingService;
+import com.janindu.ticket.service.ResponseCache;
+import com.janindu.ticket.service.StatsService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Async variant of the read and purchase endpoints.
+ * Each handler returns a CompletableFuture, so the servlet thread is handed back
+ * to the container straight away and the response is completed on a small bounded executor.
+ * This is a thread hop, not non-blocking I/O: the work itself still takes the
+ * TicketPool and LoggingService monitors on the executor threads.
+ */
+@RestController
+@RequestMapping("/api/async")
+public class AsyncController {
+
+    private final TicketPool ticketPool;
+    private final LoggingService loggingService;
+    private final StatsService statsService;
+    private final ResponseCache responseCache;
+    private final Executor apiExecutor;
+    private final Executor logExecutor;
+    private final long requestTimeoutMillis; // Not positive when async requests never time out
+
+    // Constructor to inject the services and the executors that complete responses
+    public AsyncController(TicketPool ticketPool, LoggingService loggingService, StatsService statsService,
+                           ResponseCache responseCache,
+                           @Qualifier("apiExecutor") ThreadPoolTaskExecutor apiExecutor,
+                           @Qualifier("logExecutor") ThreadPoolTaskExecutor logExecutor,
+                           @Value("${spring.mvc.async.request-timeout:5000ms}") Duration requestTimeout) {
+        this.ticketPool = ticketPool;
+        this.loggingService = loggingService;
+        this.statsService = statsService;
+        this.responseCache = responseCache;
+        this.apiExecutor = apiExecutor;
+        this.logExecutor = logExecutor;
+        this.requestTimeoutMillis = requestTimeout.toMillis();
+    }
+
+    /**
+     * Retrieves the real-time ticket count from the ticket pool.
+     * @param ifNoneMatch The ETag of the count the client already has, if any
+     * @return Future of a ResponseEntity containing the current ticket count, or a 304 if unchanged
+     */
+    @GetMapping("/tickets/count")
+    public CompletableFuture<ResponseEntity<byte[]>> getRealTimeTicketCount(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return submit(() -> responseCache.getTicketCount().toResponseEntity(ifNoneMatch), apiExecutor);
+    }
+
+    /**
+     * Purchases a single ticket without waiting for one to be released.
+     * @return Future of a ResponseEntity containing the purchased ticket, or a 409 if the pool is empty
+     */
+    @PostMapping("/tickets/purchase")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> purchaseTicket() {
+        return submit(() -> {
+            OptionalLong ticketId = ticketPool.tryRemoveTicket();
+            Map<String, Object> response = new HashMap<>();
+            if (ticketId.isEmpty()) {
+                response.put("message", "No tickets available.");
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+            }
+            response.put("ticket", "Ticket-" + ticketId.getAsLong());
+            return ResponseEntity.ok(response);
+        }, apiExecutor);
+    }
+
+    /**
+     * Retrieves the logs of the system.
+     * @return Future of a ResponseEntity containing the list of logs
+     */
+    @GetMapping("/log")
+    public CompletableFuture<ResponseEntity<List<String>>> getLogs() {
+        return submit(() -> ResponseEntity.ok(loggingService.getLogs()), logExecutor);
+    }
+
+    /**
+     * Retrieves the pre-aggregated ticket pool statistics for one resolution.
+     * @param resolution The bucket resolution (raw, 1s, 10s or 1m)
+     * @return Future of a ResponseEntity containing the buckets, or a 400 for an unknown resolution
+     */
+    @GetMapping("/stats")
+    public CompletableFuture<ResponseEntity<List<StatsBucket>>> getStats(
+            @RequestParam(defaultValue = StatsService.DEFAULT_RESOLUTION) String resolution) {
+        if (!statsService.getResolutions().contains(resolution)) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        return submit(() -> ResponseEntity.ok(statsService.getBuckets(resolution)), apiExecutor);
+    }
+
+    /**
+     * Answers with 503 when an executor queue is full.
+     * @return ResponseEntity with a 503 status
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> handleRejected() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Server is busy. Please retry.");
+    }
+
+    /**
+     * Runs a handler on an executor. A task that waited in the queue longer than the
+     * async request timeout is skipped, because its request has already timed out.
+     * Without a positive timeout every task runs.
+     *
+     * @param handler  The work that builds the response.
+     * @param executor The executor to run it on.
+     * @return Future of the response.
+     * @throws RejectedExecutionException if the executor queue is full.
+     */
+    private <T> CompletableFuture<ResponseEntity<T>> submit(Supplier<ResponseEntity<T>> handler, Executor executor) {
+        long queuedAt = System.currentTimeMillis();
+        return CompletableFuture.supplyAsync(() -> {
+            if (requestTimeoutMillis > 0 && System.currentTimeMillis() - queuedAt >= requestTimeoutMillis) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
+            return handler.get();
+        }, executor);
+    }
+}
@@ -1,10 +1,17 @@
 package com.janindu.ticket.controller;
 
+import com.janindu.ticket.model.LockProfile;
 import com.janindu.ticket.model.MainConfig;
+import com.janindu.ticket.model.StatsBucket;
 import com.janindu.ticket.model.TicketPool;
+import com.janindu.ticket.service.ContentionProfiler;
+import com.janindu.ticket.service.LogEvent;
 import com.janindu.ticket.service.LoggingService;
 import com.janindu.ticket.service.MainService;
+import com.janindu.ticket.service.ResponseCache;
+import com.janindu.ticket.service.StatsService;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -20,12 +27,19 @@ public class MainController {
     private final MainService mainService;
     private final TicketPool ticketPool;
     private final LoggingService loggingService;
+    private final StatsService statsService;
+    private final ResponseCache responseCache;
+    private final ContentionProfiler profiler;
 
     // Constructor to inject the services
-    public MainController(MainService mainService, TicketPool ticketPool, LoggingService loggingService) {
+    public MainController(MainService mainService, TicketPool ticketPool, LoggingService loggingService,
+                          StatsService statsService, ResponseCache responseCache, ContentionProfiler profiler) {
         this.mainService = mainService;
         this.ticketPool = ticketPool;
         this.loggingService = loggingService;
+        this.statsService = statsService;
+        this.responseCache = responseCache;
+        this.profiler = profiler;
     }
 
     /**
@@ -38,22 +52,25 @@ public class MainController {
     public ResponseEntity<Map<String, Object>> configureSystem(@RequestBody @Valid MainConfig config) {
         mainService.clearConfig();
         MainConfig savedConfig = mainService.saveConfig(config);
+        responseCache.putConfig(savedConfig);
         Map<String, Object> response = new HashMap<>();
         response.put("ticketsAvailable", savedConfig.getTotalTickets());
 
-        loggingService.addLog("System configured with " + config.getNumberOfVendors() + " vendors and " + config.getNumberOfCustomers() + " customers.");
+        loggingService.addLog(LogEvent.SYSTEM_CONFIGURED, config.getNumberOfVendors(), config.getNumberOfCustomers());
 
         return ResponseEntity.ok(response);
     }
 
     /**
      * Retrieves the current configuration of the system.
-     * @return ResponseEntity containing the current configuration or a 404 if not found
+     * @param ifNoneMatch The ETag of the configuration the client already has, if any
+     * @return ResponseEntity containing the current configuration, a 304 if unchanged, or a 404 if not found
      */
     @GetMapping("/config")
-    public ResponseEntity<MainConfig> getConfig() {
-        return mainService.getConfig()
-                .map(ResponseEntity::ok)
+    public ResponseEntity<byte[]> getConfig(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return responseCache.getConfig()
+                .map(cached -> cached.toResponseEntity(ifNoneMatch))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -69,8 +86,12 @@ public class MainController {
             return ResponseEntity.badRequest().body("Configuration not found. Please configure the system first.");
         }
 
-        mainService.startSystem(ticketPool);
-        loggingService.addLog("System started successfully.");
+        try {
+            mainService.startSystem(ticketPool);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        loggingService.addLog(LogEvent.SYSTEM_STARTED);
 
         // Return a success message
         return ResponseEntity.ok("System started successfully!");
@@ -83,7 +104,7 @@ public class MainController {
     @PostMapping("/stop")
     public ResponseEntity<String> stopSystem() {
         mainService.stopSystem(); // Stop the system
-        loggingService.addLog("System stopped successfully.");
+        loggingService.addLog(LogEvent.SYSTEM_STOPPED);
 
         return ResponseEntity.ok("System stopped successfully!");
     }
@@ -109,17 +130,51 @@ public class MainController {
 
     /**
      * Retrieves the real-time ticket count from the ticket pool.
-     * @return ResponseEntity containing the current ticket count
+     * @param ifNoneMatch The ETag of the count the client already has, if any
+     * @return ResponseEntity containing the current ticket count, or a 304 if unchanged
      */
     @GetMapping("/tickets/count")
-    public ResponseEntity<Map<String, Integer>> getRealTimeTicketCount() {
-        int ticketCount = ticketPool.getCurrentTicketCount();
+    public ResponseEntity<byte[]> getRealTimeTicketCount(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return responseCache.getTicketCount().toResponseEntity(ifNoneMatch);
+    }
+
+    /**
+     * Retrieves the pre-aggregated ticket pool statistics for one resolution.
+     * @param resolution The bucket resolution (raw, 1s, 10s or 1m)
+     * @return ResponseEntity containing the buckets, oldest first, or a 400 for an unknown resolution
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<List<StatsBucket>> getStats(
+            @RequestParam(defaultValue = StatsService.DEFAULT_RESOLUTION) String resolution) {
+        if (!statsService.getResolutions().contains(resolution)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(statsService.getBuckets(resolution));
+    }
 
-        Map<String, Integer> response = new HashMap<>();
-        response.put("ticketsAvailable", ticketCount);
+    /**
+     * Retrieves the lock contention recorded for the ticket pool and log monitors.
+     * @return ResponseEntity containing one summary per code path, or a 404 if profiling is disabled
+     */
+    @GetMapping("/profile")
+    public ResponseEntity<List<LockProfile>> getProfile() {
+        if (!profiler.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(profiler.getSummary());
+    }
 
-        return ResponseEntity.ok()
-                .header("Content-Type", "application/json")
-                .body(response);
+    /**
+     * Clears the recorded lock contention, e.g. before measuring a change.
+     * @return ResponseEntity indicating that the profile was cleared, or a 404 if profiling is disabled
+     */
+    @DeleteMapping("/profile")
+    public ResponseEntity<String> clearProfile() {
+        if (!profiler.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        profiler.reset();
+        return ResponseEntity.ok("Profile cleared successfully!");
     }
 }
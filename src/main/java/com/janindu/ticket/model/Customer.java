@@ -1,30 +1,34 @@
 package com.janindu.ticket.model;
 
+import com.janindu.ticket.service.ContentionProfiler;
+import com.janindu.ticket.service.ContentionProfiler.Site;
+import com.janindu.ticket.service.LogEvent;
 import com.janindu.ticket.service.LoggingService;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 /**
  * Customer class represents a consumer that retrieves tickets from the TicketPool.
  * Implements Runnable to support multithreading.
  */
 public class Customer implements Runnable {
-    private static final Logger logger = LoggerFactory.getLogger(Customer.class);
     private final TicketPool ticketPool; // Shared TicketPool resource
-    private final int retrievalLimit; // Number of tickets to retrieve
+    private volatile int remaining; // Retrievals still to make, updated while holding the pool lock
     private final LoggingService loggingService; // Service to handle logging
+    private final ContentionProfiler profiler; // Measures contention on the TicketPool
 
     /**
      * Constructor to initialize Customer with required parameters.
      *
      * @param ticketPool     The shared TicketPool resource.
-     * @param retrievalLimit Number of tickets to retrieve.
+     * @param retrievalLimit Number of tickets to retrieve, less than the configured rate when resuming.
      * @param loggingService Service for logging operations.
+     * @param profiler       Profiler that measures contention on the TicketPool.
      */
-    public Customer(TicketPool ticketPool, int retrievalLimit, LoggingService loggingService) {
+    public Customer(TicketPool ticketPool, int retrievalLimit, LoggingService loggingService,
+                    ContentionProfiler profiler) {
         this.ticketPool = ticketPool;
-        this.retrievalLimit = retrievalLimit;
+        this.remaining = retrievalLimit;
         this.loggingService = loggingService;
+        this.profiler = profiler;
     }
 
     /**
@@ -33,32 +37,52 @@ public class Customer implements Runnable {
      */
     @Override
     public void run() {
-        for (int i = 0; i < retrievalLimit; i++) {
+        int actor = loggingService.registerActor(Thread.currentThread().getName());
+        while (remaining > 0) {
             try {
-                synchronized (ticketPool) {
-                    if (ticketPool.getAvailableTickets() == 0) {
-                        String logMessage = Thread.currentThread().getName() + ": No tickets available. Waiting...";
-                        logger.info(logMessage);
-                        loggingService.addLog(logMessage);
-                    } else {
-                        String ticket = ticketPool.removeTicket();
-                        String logMessage = Thread.currentThread().getName() + ": Purchased " + ticket +
-                                ". Current ticket count: " + ticketPool.getCurrentTicketCount();
-                        logger.info(logMessage);
-                        loggingService.addLog(logMessage);
-                    }
-                }
+                purchaseTicket(actor);
                 Thread.sleep(700); // Delay between ticket retrievals (in milliseconds)
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
-                String logMessage = Thread.currentThread().getName() + ": Customer interrupted";
-                logger.error(logMessage, e);
-                loggingService.addLog(logMessage);
+                loggingService.addLog(LogEvent.CUSTOMER_INTERRUPTED, actor, 0, 0);
                 break;
             }
         }
-        String logMessage = Thread.currentThread().getName() + ": Finished purchasing tickets.";
-        logger.info(logMessage);
-        loggingService.addLog(logMessage);
+        loggingService.addLog(LogEvent.CUSTOMER_FINISHED, actor, 0, 0);
+    }
+
+    /**
+     * Gets the number of retrievals this customer has still to make.
+     * Read while holding the pool lock, it is consistent with the pool contents.
+     *
+     * @return The remaining retrieval count.
+     */
+    public int getRemaining() {
+        return remaining;
+    }
+
+    /**
+     * Purchases a ticket from the TicketPool, or records a wait if it is empty.
+     *
+     * @param actor The log actor id of the running thread.
+     * @throws InterruptedException If the thread is interrupted while purchasing.
+     */
+    private void purchaseTicket(int actor) throws InterruptedException {
+        long requested = profiler.requesting(Site.CUSTOMER_PURCHASE, ticketPool);
+        synchronized (ticketPool) {
+            long acquired = profiler.acquired(Site.CUSTOMER_PURCHASE, requested);
+            try {
+                remaining--;
+                if (ticketPool.getAvailableTickets() == 0) {
+                    ticketPool.recordWait();
+                    loggingService.addLog(LogEvent.CUSTOMER_WAITING, actor, 0, 0);
+                } else {
+                    long ticketId = ticketPool.removeTicket();
+                    loggingService.addLog(LogEvent.CUSTOMER_PURCHASED, actor, ticketId, ticketPool.getCurrentTicketCount());
+                }
+            } finally {
+                profiler.released(Site.CUSTOMER_PURCHASE, requested, acquired);
+            }
+        }
     }
 }
@@ -0,0 +1,67 @@
+package com.janindu.ticket.model;
+
+/**
+ * LockProfile summarizes the contention recorded for one code path entering a monitor,
+ * as returned by the profile endpoint.
+ */
+public class LockProfile {
+
+    private final String monitor; // Monitor that was entered
+    private final String site; // Code path that entered it
+    private final long count; // Number of times the monitor was entered
+    private final long avgWaitNanos;
+    private final long maxWaitNanos;
+    private final long avgHoldNanos;
+    private final long maxHoldNanos;
+    private final double avgWaiters; // Other threads still waiting when the monitor was acquired
+    private final long maxWaiters;
+
+    public LockProfile(String monitor, String site, long count, long avgWaitNanos, long maxWaitNanos,
+                       long avgHoldNanos, long maxHoldNanos, double avgWaiters, long maxWaiters) {
+        this.monitor = monitor;
+        this.site = site;
+        this.count = count;
+        this.avgWaitNanos = avgWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+        this.avgHoldNanos = avgHoldNanos;
+        this.maxHoldNanos = maxHoldNanos;
+        this.avgWaiters = avgWaiters;
+        this.maxWaiters = maxWaiters;
+    }
+
+    public String getMonitor() {
+        return monitor;
+    }
+
+    public String getSite() {
+        return site;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getAvgWaitNanos() {
+        return avgWaitNanos;
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos;
+    }
+
+    public long getAvgHoldNanos() {
+        return avgHoldNanos;
+    }
+
+    public long getMaxHoldNanos() {
+        return maxHoldNanos;
+    }
+
+    public double getAvgWaiters() {
+        return avgWaiters;
+    }
+
+    public long getMaxWaiters() {
+        return maxWaiters;
+    }
+}
@@ -0,0 +1,83 @@
+package com.janindu.ticket.model;
+
+/**
+ * StatsBucket is one pre-aggregated time bucket of ticket pool statistics,
+ * as returned by the stats endpoint.
+ */
+public class StatsBucket {
+
+    private final long start; // Bucket start time (epoch milliseconds)
+    private final long durationMillis; // Bucket length in milliseconds
+    private final long coveredMillis; // Time covered by samples, less than durationMillis if the bucket was only partly sampled
+    private final int samples; // Number of samples folded into the bucket
+    private final double occupancyAvg;
+    private final int occupancyMin;
+    private final int occupancyMax;
+    private final long released; // Tickets released during the bucket
+    private final long purchased; // Tickets purchased during the bucket
+    private final long waits; // Purchase attempts that found the pool empty
+
+    public StatsBucket(long start, long durationMillis, long coveredMillis, int samples, double occupancyAvg,
+                       int occupancyMin, int occupancyMax, long released, long purchased, long waits) {
+        this.start = start;
+        this.durationMillis = durationMillis;
+        this.coveredMillis = coveredMillis;
+        this.samples = samples;
+        this.occupancyAvg = occupancyAvg;
+        this.occupancyMin = occupancyMin;
+        this.occupancyMax = occupancyMax;
+        this.released = released;
+        this.purchased = purchased;
+        this.waits = waits;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public long getCoveredMillis() {
+        return coveredMillis;
+    }
+
+    public int getSamples() {
+        return samples;
+    }
+
+    public double getOccupancyAvg() {
+        return occupancyAvg;
+    }
+
+    public int getOccupancyMin() {
+        return occupancyMin;
+    }
+
+    public int getOccupancyMax() {
+        return occupancyMax;
+    }
+
+    public long getReleased() {
+        return released;
+    }
+
+    public long getPurchased() {
+        return purchased;
+    }
+
+    public long getWaits() {
+        return waits;
+    }
+
+    // Tickets released per second over the time the bucket covers.
+    public double getReleaseRate() {
+        return released * 1000.0 / coveredMillis;
+    }
+
+    // Tickets purchased per second over the time the bucket covers.
+    public double getPurchaseRate() {
+        return purchased * 1000.0 / coveredMillis;
+    }
+}
@@ -1,12 +1,14 @@
 package com.janindu.ticket.model;
 
+import com.janindu.ticket.service.ContentionProfiler;
+import com.janindu.ticket.service.ContentionProfiler.Site;
+import com.janindu.ticket.service.LogEvent;
 import com.janindu.ticket.service.LoggingService;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.OptionalLong;
 
 /**
  * TicketPool manages the pool of tickets in the system.
@@ -15,47 +17,139 @@ import java.util.List;
 @Component
 public class TicketPool {
 
-    private static final Logger logger = LoggerFactory.getLogger(TicketPool.class);
+    // Queue of ticket ids, oldest first.
+    private final Deque<Long> tickets = new ArrayDeque<>();
 
-    // List to store tickets.
-    private final List<String> tickets = new ArrayList<>();
+    // Size of the queue, written while holding the pool monitor and read without it.
+    private volatile int ticketCount;
+
+    // Running totals used for pool statistics.
+    private long releasedCount;
+    private long purchasedCount;
+    private long waitCount;
 
     // Service to log system messages.
     private final LoggingService loggingService;
 
+    // Records lock wait and hold times when profiling is enabled.
+    private final ContentionProfiler profiler;
+
     /**
      * Constructor for TicketPool.
      *
      * @param loggingService The service used for logging messages.
+     * @param profiler       The profiler that measures contention on this pool.
      */
-    public TicketPool(LoggingService loggingService) {
+    public TicketPool(LoggingService loggingService, ContentionProfiler profiler) {
         this.loggingService = loggingService;
+        this.profiler = profiler;
     }
 
     /**
      * Adds a ticket to the pool and notifies any waiting threads.
      *
-     * @param ticket The ticket to be added.
+     * @param ticketId The id of the ticket to be added.
      */
-    public synchronized void addTicket(String ticket) {
-        tickets.add(ticket);
-        logMessage("Added ticket: " + ticket);
-        notifyAll(); // Notify threads waiting for tickets.
+    public void addTicket(long ticketId) {
+        long requested = profiler.requesting(Site.POOL_ADD, this);
+        synchronized (this) {
+            long acquired = profiler.acquired(Site.POOL_ADD, requested);
+            try {
+                tickets.addLast(ticketId);
+                ticketCount = tickets.size();
+                releasedCount++;
+                loggingService.addLog(LogEvent.TICKET_ADDED, ticketId, 0);
+                notifyAll(); // Notify threads waiting for tickets.
+            } finally {
+                profiler.released(Site.POOL_ADD, requested, acquired);
+            }
+        }
     }
 
     /**
      * Removes a ticket from the pool. Waits if no tickets are available.
+     * When profiling, the hold time includes any time spent waiting for a ticket.
      *
-     * @return The removed ticket.
+     * @return The id of the removed ticket.
      * @throws InterruptedException If the thread is interrupted while waiting.
      */
-    public synchronized String removeTicket() throws InterruptedException {
-        while (tickets.isEmpty()) {
-            wait(); // Wait until a ticket is available.
+    public long removeTicket() throws InterruptedException {
+        long requested = profiler.requesting(Site.POOL_REMOVE, this);
+        synchronized (this) {
+            long acquired = profiler.acquired(Site.POOL_REMOVE, requested);
+            try {
+                while (tickets.isEmpty()) {
+                    wait(); // Wait until a ticket is available.
+                }
+                return takeFirstTicket();
+            } finally {
+                profiler.released(Site.POOL_REMOVE, requested, acquired);
+            }
+        }
+    }
+
+    /**
+     * Removes a ticket from the pool without waiting.
+     * An empty pool is recorded as a wait, the same as a customer finding it empty.
+     *
+     * @return The id of the removed ticket, or empty if no tickets are available.
+     */
+    public OptionalLong tryRemoveTicket() {
+        long requested = profiler.requesting(Site.POOL_TRY_REMOVE, this);
+        synchronized (this) {
+            long acquired = profiler.acquired(Site.POOL_TRY_REMOVE, requested);
+            try {
+                if (tickets.isEmpty()) {
+                    waitCount++;
+                    return OptionalLong.empty();
+                }
+                return OptionalLong.of(takeFirstTicket());
+            } finally {
+                profiler.released(Site.POOL_TRY_REMOVE, requested, acquired);
+            }
+        }
+    }
+
+    /**
+     * Gets the ids of the tickets in the pool, oldest first.
+     *
+     * @return A copy of the ticket ids.
+     */
+    public synchronized long[] getTicketIds() {
+        long[] ticketIds = new long[tickets.size()];
+        int i = 0;
+        for (long ticketId : tickets) {
+            ticketIds[i++] = ticketId;
+        }
+        return ticketIds;
+    }
+
+    /**
+     * Replaces the pool contents and counters, e.g. from a snapshot taken before a restart.
+     *
+     * @param ticketIds      The ids of the tickets in the pool, oldest first.
+     * @param releasedCount  The total number of tickets released.
+     * @param purchasedCount The total number of tickets purchased.
+     * @param waitCount      The total number of times a customer found the pool empty.
+     */
+    public synchronized void restore(long[] ticketIds, long releasedCount, long purchasedCount, long waitCount) {
+        tickets.clear();
+        for (long ticketId : ticketIds) {
+            tickets.addLast(ticketId);
         }
-        String ticket = tickets.remove(0); // Remove the first ticket.
-        logMessage("Removed ticket: " + ticket);
-        return ticket;
+        ticketCount = tickets.size();
+        this.releasedCount = releasedCount;
+        this.purchasedCount = purchasedCount;
+        this.waitCount = waitCount;
+        notifyAll(); // Notify threads waiting for tickets.
+    }
+
+    /**
+     * Discards all unsold tickets, e.g. when a new sale reuses their ids. The counters are kept.
+     */
+    public synchronized void clear() {
+        tickets.clear();
+        ticketCount = 0;
     }
 
     /**
@@ -68,21 +162,59 @@ public class TicketPool {
     }
 
     /**
-     * Gets the current ticket count in the pool.
+     * Gets the current ticket count in the pool without taking the pool monitor,
+     * so frequent polling does not contend with vendors and customers.
      *
      * @return The current ticket count.
      */
-    public synchronized int getCurrentTicketCount() {
-        return tickets.size();
+    public int getCurrentTicketCount() {
+        return ticketCount;
+    }
+
+    /**
+     * Records that a customer found the pool empty and has to wait.
+     */
+    public synchronized void recordWait() {
+        waitCount++;
+    }
+
+    /**
+     * Gets the total number of tickets released into the pool.
+     *
+     * @return The released ticket count.
+     */
+    public synchronized long getReleasedCount() {
+        return releasedCount;
+    }
+
+    /**
+     * Gets the total number of tickets purchased from the pool.
+     *
+     * @return The purchased ticket count.
+     */
+    public synchronized long getPurchasedCount() {
+        return purchasedCount;
+    }
+
+    /**
+     * Gets the total number of times a customer found the pool empty.
+     *
+     * @return The wait count.
+     */
+    public synchronized long getWaitCount() {
+        return waitCount;
     }
 
     /**
-     * Logs a message and adds it to the logging service.
+     * Removes the first ticket and records the purchase. Must hold the pool monitor.
      *
-     * @param message The message to log.
+     * @return The id of the removed ticket.
      */
-    private void logMessage(String message) {
-        logger.info(message);
-        loggingService.addLog(message);
+    private long takeFirstTicket() {
+        long ticketId = tickets.removeFirst(); // Remove the first ticket.
+        ticketCount = tickets.size();
+        purchasedCount++;
+        loggingService.addLog(LogEvent.TICKET_REMOVED, ticketId, 0);
+        return ticketId;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,29 @@
+package com.janindu.ticket.model;
+
+import java.util.OptionalLong;
+
+/**
+ * TicketSource hands out the ids of new tickets for vendors to release.
+ */
+@FunctionalInterface
+public interface TicketSource {
+
+    // Source used when the inventory is not partitioned: every release gets a fresh id.
+    TicketSource UNBOUNDED = () -> OptionalLong.of(System.nanoTime());
+
+    /**
+     * Gets the id of the next ticket to release.
+     *
+     * @return The ticket id, or empty if there is no inventory left.
+     */
+    OptionalLong nextTicketId();
+
+    /**
+     * Gives back an id from {@link #nextTicketId()} that was never released,
+     * so it can be handed out again.
+     *
+     * @param ticketId The unused ticket id.
+     */
+    default void returnTicketId(long ticketId) {
+    }
+}
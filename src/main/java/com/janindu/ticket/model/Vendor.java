@@ -1,63 +1,105 @@
 package com.janindu.ticket.model;
 
+import com.janindu.ticket.service.ContentionProfiler;
+import com.janindu.ticket.service.ContentionProfiler.Site;
+import com.janindu.ticket.service.LogEvent;
 import com.janindu.ticket.service.LoggingService;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+
+import java.util.OptionalLong;
 
 /**
  * Vendor class represents a producer that adds tickets to the TicketPool.
  * Implements Runnable to support multithreading.
  */
 public class Vendor implements Runnable {
-    private static final Logger logger = LoggerFactory.getLogger(Vendor.class);
     private final TicketPool ticketPool;
-    private final int ticketsToRelease;
+    private volatile int remaining; // Tickets still to release, updated while holding the pool lock
     private final int maxCapacity;
+    private final TicketSource ticketSource;
     private final LoggingService loggingService;
+    private final ContentionProfiler profiler;
+    private int actor = LoggingService.NO_ACTOR; // Log actor id of the running thread
 
     /**
      * Constructor to initialize Vendor with required parameters.
      *
      * @param ticketPool      The shared TicketPool resource.
-     * @param ticketsToRelease Number of tickets to release.
+     * @param ticketsToRelease Number of tickets to release, less than the configured rate when resuming.
      * @param maxCapacity      Maximum capacity of the TicketPool.
+     * @param ticketSource     Source of the ids of released tickets.
      * @param loggingService   Service for logging operations.
+     * @param profiler         Profiler that measures contention on the TicketPool.
      */
-    public Vendor(TicketPool ticketPool, int ticketsToRelease, int maxCapacity, LoggingService loggingService) {
+    public Vendor(TicketPool ticketPool, int ticketsToRelease, int maxCapacity, TicketSource ticketSource,
+                  LoggingService loggingService, ContentionProfiler profiler) {
         this.ticketPool = ticketPool;
-        this.ticketsToRelease = ticketsToRelease;
+        this.remaining = ticketsToRelease;
         this.maxCapacity = maxCapacity;
+        this.ticketSource = ticketSource;
         this.loggingService = loggingService;
+        this.profiler = profiler;
     }
 
     /**
      * The run method for the Vendor thread. It releases tickets into the TicketPool
-     * until the specified number of tickets is released or the pool reaches its maximum capacity.
+     * until the specified number of tickets is released, the pool reaches its maximum capacity,
+     * or the thread is interrupted.
      */
     @Override
     public void run() {
-        for (int i = 0; i < ticketsToRelease; i++) {
-            if (releaseTicket()) break; // Stop releasing if max capacity is reached
+        actor = loggingService.registerActor(Thread.currentThread().getName());
+        while (remaining > 0 && !Thread.currentThread().isInterrupted()) {
+            if (releaseTicket()) break; // Stop releasing if max capacity is reached or inventory is exhausted
             delay(500); // Delay between ticket releases (in milliseconds)
         }
     }
 
     /**
-     * Releases a ticket to the TicketPool. If the pool reaches max capacity, stops releasing.
+     * Releases a ticket to the TicketPool. If the pool reaches max capacity
+     * or the ticket source has no inventory left, stops releasing.
+     * The ticket id is fetched before the pool is locked, because the source may
+     * have to ask the cluster coordinator for more inventory.
      *
-     * @return true if the max capacity is reached, false otherwise.
+     * @return true if releasing should stop, false otherwise.
      */
     private boolean releaseTicket() {
+        OptionalLong ticketId = ticketSource.nextTicketId();
+        if (ticketId.isEmpty()) {
+            loggingService.addLog(LogEvent.VENDOR_INVENTORY_EXHAUSTED, actor, 0, 0);
+            return true;
+        }
+
+        boolean capacityReached;
+        long requested = profiler.requesting(Site.VENDOR_RELEASE, ticketPool);
         synchronized (ticketPool) {
-            if (ticketPool.getAvailableTickets() >= maxCapacity) {
-                logMessage("Max ticket capacity reached. Pausing ticket release.");
-                return true;
+            long acquired = profiler.acquired(Site.VENDOR_RELEASE, requested);
+            try {
+                capacityReached = ticketPool.getAvailableTickets() >= maxCapacity;
+                if (!capacityReached) {
+                    ticketPool.addTicket(ticketId.getAsLong());
+                    remaining--;
+                    loggingService.addLog(LogEvent.VENDOR_RELEASED, actor, ticketId.getAsLong(), ticketPool.getCurrentTicketCount());
+                }
+            } finally {
+                profiler.released(Site.VENDOR_RELEASE, requested, acquired);
             }
-            String ticket = "Ticket-" + System.nanoTime();
-            ticketPool.addTicket(ticket);
-            logMessage("Added " + ticket + ". Current ticket count: " + ticketPool.getCurrentTicketCount());
         }
-        return false;
+
+        if (capacityReached) {
+            ticketSource.returnTicketId(ticketId.getAsLong()); // Not released, so the id stays in the inventory
+            loggingService.addLog(LogEvent.VENDOR_CAPACITY_REACHED, actor, 0, 0);
+        }
+        return capacityReached;
+    }
+
+    /**
+     * Gets the number of tickets this vendor has still to release.
+     * Read while holding the pool lock, it is consistent with the pool contents.
+     *
+     * @return The remaining ticket count.
+     */
+    public int getRemaining() {
+        return remaining;
     }
 
     /**
@@ -70,19 +112,7 @@ public class Vendor implements Runnable {
             Thread.sleep(duration);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            logMessage("Vendor interrupted");
+            loggingService.addLog(LogEvent.VENDOR_INTERRUPTED, actor, 0, 0);
         }
     }
-
-    /**
-     * Logs a message with the thread name for context.
-     *
-     * @param message The message to log.
-     */
-    private void logMessage(String message) {
-        String fullMessage = Thread.currentThread().getName() + ": " + message;
-        logger.info(fullMessage);
-        loggingService.addLog(fullMessage);
-    }
 }
-
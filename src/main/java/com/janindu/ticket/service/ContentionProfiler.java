@@ -0,0 +1,228 @@
+package com.janindu.ticket.service;
+
+import com.janindu.ticket.model.LockProfile;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ContentionProfiler measures how long threads wait for and hold the TicketPool and LoggingService monitors.
+ * Each instrumented site calls {@link #requesting(Site, Object)} before entering the monitor,
+ * {@link #acquired(Site, long)} as the first statement inside it and {@link #released(Site, long, long)}
+ * when leaving it, in a finally block. When profiling is disabled, or the thread already holds the
+ * monitor, these calls return immediately, so only the outermost acquisition is recorded.
+ * Every measurement is also committed as a JFR event, so it shows up in any flight recording.
+ */
+@Service
+public class ContentionProfiler {
+
+    /**
+     * Monitors that are profiled.
+     */
+    public enum Monitor {
+        TICKET_POOL,
+        LOGGING_SERVICE
+    }
+
+    /**
+     * Code paths that enter a profiled monitor.
+     */
+    public enum Site {
+        POOL_ADD(Monitor.TICKET_POOL),
+        POOL_REMOVE(Monitor.TICKET_POOL),
+        POOL_TRY_REMOVE(Monitor.TICKET_POOL),
+        VENDOR_RELEASE(Monitor.TICKET_POOL),
+        CUSTOMER_PURCHASE(Monitor.TICKET_POOL),
+        STATS_SAMPLE(Monitor.TICKET_POOL),
+        SNAPSHOT_CAPTURE(Monitor.TICKET_POOL),
+        LOG_APPEND(Monitor.LOGGING_SERVICE),
+        LOG_READ(Monitor.LOGGING_SERVICE),
+        LOG_CLEAR(Monitor.LOGGING_SERVICE);
+
+        private final Monitor monitor;
+
+        Site(Monitor monitor) {
+            this.monitor = monitor;
+        }
+
+        public Monitor getMonitor() {
+            return monitor;
+        }
+    }
+
+    // Returned instead of a timestamp when an acquisition is not recorded.
+    private static final long NOT_RECORDED = Long.MIN_VALUE;
+
+    private final boolean enabled;
+
+    // Threads currently between requesting and acquiring each monitor.
+    private final AtomicInteger[] waiters = new AtomicInteger[Monitor.values().length];
+    private final SiteStats[] stats = new SiteStats[Site.values().length];
+
+    /**
+     * Constructor for ContentionProfiler.
+     *
+     * @param enabled Whether lock wait and hold times are recorded.
+     */
+    public ContentionProfiler(@Value("${ticket.profiling.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+        for (int i = 0; i < waiters.length; i++) {
+            waiters[i] = new AtomicInteger();
+        }
+        for (int i = 0; i < stats.length; i++) {
+            stats[i] = new SiteStats();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Called just before entering the monitor. Re-entering a monitor the thread
+     * already holds is not recorded, because it neither waits nor adds hold time.
+     *
+     * @param site The site entering the monitor.
+     * @param lock The monitor object.
+     * @return The request time to pass to {@link #acquired(Site, long)}.
+     */
+    public long requesting(Site site, Object lock) {
+        if (!enabled || Thread.holdsLock(lock)) {
+            return NOT_RECORDED;
+        }
+        waiters[site.monitor.ordinal()].incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * Called as the first statement inside the monitor. Records the wait time and the threads still waiting.
+     *
+     * @param site        The site that entered the monitor.
+     * @param requestedAt The value returned by {@link #requesting(Site, Object)}.
+     * @return The acquire time to pass to {@link #released(Site, long, long)}.
+     */
+    public long acquired(Site site, long requestedAt) {
+        if (requestedAt == NOT_RECORDED) {
+            return NOT_RECORDED;
+        }
+        long acquiredAt = System.nanoTime();
+        int stillWaiting = waiters[site.monitor.ordinal()].decrementAndGet();
+        SiteStats siteStats = stats[site.ordinal()];
+        siteStats.waitNanos.add(acquiredAt - requestedAt);
+        siteStats.maxWaitNanos.accumulate(acquiredAt - requestedAt);
+        siteStats.waiters.add(stillWaiting);
+        siteStats.maxWaiters.accumulate(stillWaiting);
+        return acquiredAt;
+    }
+
+    /**
+     * Called when leaving the monitor. Records the hold time and commits a JFR event.
+     *
+     * @param site        The site leaving the monitor.
+     * @param requestedAt The value returned by {@link #requesting(Site, Object)}.
+     * @param acquiredAt  The value returned by {@link #acquired(Site, long)}.
+     */
+    public void released(Site site, long requestedAt, long acquiredAt) {
+        if (acquiredAt == NOT_RECORDED) {
+            return;
+        }
+        long holdNanos = System.nanoTime() - acquiredAt;
+        SiteStats siteStats = stats[site.ordinal()];
+        siteStats.count.increment();
+        siteStats.holdNanos.add(holdNanos);
+        siteStats.maxHoldNanos.accumulate(holdNanos);
+
+        LockProfileEvent event = new LockProfileEvent();
+        if (event.isEnabled()) {
+            event.monitor = site.monitor.name();
+            event.site = site.name();
+            event.waitNanos = acquiredAt - requestedAt;
+            event.holdNanos = holdNanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * Summarizes the measurements recorded since startup or the last reset.
+     *
+     * @return One entry per site that entered its monitor at least once.
+     */
+    public List<LockProfile> getSummary() {
+        List<LockProfile> summary = new ArrayList<>();
+        for (Site site : Site.values()) {
+            SiteStats siteStats = stats[site.ordinal()];
+            long count = siteStats.count.sum();
+            if (count == 0) {
+                continue;
+            }
+            summary.add(new LockProfile(site.monitor.name(), site.name(), count,
+                    siteStats.waitNanos.sum() / count, siteStats.maxWaitNanos.get(),
+                    siteStats.holdNanos.sum() / count, siteStats.maxHoldNanos.get(),
+                    (double) siteStats.waiters.sum() / count, siteStats.maxWaiters.get()));
+        }
+        return summary;
+    }
+
+    /**
+     * Discards all measurements, e.g. before measuring the effect of a change.
+     */
+    public void reset() {
+        for (SiteStats siteStats : stats) {
+            siteStats.reset();
+        }
+    }
+
+    /**
+     * Running totals for one site. Lock free, so profiling does not add contention of its own.
+     */
+    private static final class SiteStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder holdNanos = new LongAdder();
+        private final LongAccumulator maxHoldNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder waiters = new LongAdder();
+        private final LongAccumulator maxWaiters = new LongAccumulator(Math::max, 0);
+
+        void reset() {
+            count.reset();
+            waitNanos.reset();
+            maxWaitNanos.reset();
+            holdNanos.reset();
+            maxHoldNanos.reset();
+            waiters.reset();
+            maxWaiters.reset();
+        }
+    }
+
+    @Name("com.janindu.ticket.LockProfile")
+    @Label("Ticket Lock Profile")
+    @Category("Ticket System")
+    @Description("Time spent waiting for and holding a ticket system monitor")
+    static class LockProfileEvent extends Event {
+        @Label("Monitor")
+        String monitor;
+
+        @Label("Site")
+        String site;
+
+        @Label("Wait Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long waitNanos;
+
+        @Label("Hold Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long holdNanos;
+    }
+}
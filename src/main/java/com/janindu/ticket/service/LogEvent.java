@@ -0,0 +1,79 @@
+package com.janindu.ticket.service;
+
+import org.slf4j.event.Level;
+
+/**
+ * LogEvent enumerates every kind of record the system logs.
+ * Records are stored as an event code plus primitive fields, and the text
+ * of a record is only rendered when somebody actually reads it.
+ */
+public enum LogEvent {
+
+    // Per-ticket events are DEBUG so the hot path does not render text for SLF4J by default.
+    TICKET_ADDED(Level.DEBUG, (actor, a, b) -> "Added ticket: Ticket-" + a),
+    TICKET_REMOVED(Level.DEBUG, (actor, a, b) -> "Removed ticket: Ticket-" + a),
+
+    VENDOR_RELEASED(Level.DEBUG, (actor, a, b) -> actor + ": Added Ticket-" + a + ". Current ticket count: " + b),
+    VENDOR_CAPACITY_REACHED(Level.INFO, (actor, a, b) -> actor + ": Max ticket capacity reached. Pausing ticket release."),
+    VENDOR_INVENTORY_EXHAUSTED(Level.INFO, (actor, a, b) -> actor + ": No inventory left. Stopping ticket release."),
+    VENDOR_INTERRUPTED(Level.INFO, (actor, a, b) -> actor + ": Vendor interrupted"),
+
+    CUSTOMER_WAITING(Level.DEBUG, (actor, a, b) -> actor + ": No tickets available. Waiting..."),
+    CUSTOMER_PURCHASED(Level.DEBUG, (actor, a, b) -> actor + ": Purchased Ticket-" + a + ". Current ticket count: " + b),
+    CUSTOMER_INTERRUPTED(Level.ERROR, (actor, a, b) -> actor + ": Customer interrupted"),
+    CUSTOMER_FINISHED(Level.INFO, (actor, a, b) -> actor + ": Finished purchasing tickets."),
+
+    SYSTEM_CONFIGURED(Level.INFO, (actor, a, b) -> "System configured with " + a + " vendors and " + b + " customers."),
+    SYSTEM_STARTED(Level.INFO, (actor, a, b) -> "System started successfully."),
+    SYSTEM_STOPPED(Level.INFO, (actor, a, b) -> "System stopped successfully."),
+    SNAPSHOT_RESTORED(Level.INFO, (actor, a, b) -> "Warm start restored " + a + " tickets from snapshot."),
+    THREADS_STARTED(Level.INFO, (actor, a, b) -> "All threads started."),
+    THREADS_STOPPED(Level.INFO, (actor, a, b) -> "All threads stopped.");
+
+    // Cached copy of values() so decoding a stored code does not allocate.
+    private static final LogEvent[] VALUES = values();
+
+    private final Level level;
+    private final Renderer renderer;
+
+    LogEvent(Level level, Renderer renderer) {
+        this.level = level;
+        this.renderer = renderer;
+    }
+
+    /**
+     * Gets the SLF4J level this event is emitted at.
+     *
+     * @return The SLF4J level.
+     */
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Renders the event as a human readable log line.
+     *
+     * @param actor The name of the thread that recorded the event, or null.
+     * @param a     The first primitive field of the record.
+     * @param b     The second primitive field of the record.
+     * @return The rendered log line.
+     */
+    public String render(String actor, long a, long b) {
+        return renderer.render(actor, a, b);
+    }
+
+    /**
+     * Looks up an event by its stored code.
+     *
+     * @param code The code returned by {@link #ordinal()}.
+     * @return The matching event.
+     */
+    static LogEvent fromCode(int code) {
+        return VALUES[code];
+    }
+
+    @FunctionalInterface
+    private interface Renderer {
+        String render(String actor, long a, long b);
+    }
+}
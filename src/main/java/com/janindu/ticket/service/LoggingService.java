@@ -1,24 +1,210 @@
 package com.janindu.ticket.service;
 
+import com.janindu.ticket.service.ContentionProfiler.Site;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * LoggingService keeps the most recent system log records in a fixed size ring.
+ * Each record is an event code plus primitive fields held in parallel arrays,
+ * so recording an event does not build any strings. Text is rendered only when
+ * the logs are read, or when SLF4J is enabled for the event and it is sampled.
+ */
 @Service
 public class LoggingService {
-    private final List<String> logs = Collections.synchronizedList(new ArrayList<>());
 
-    public synchronized void addLog(String log) {
-        logs.add(log);
+    private static final Logger logger = LoggerFactory.getLogger(LoggingService.class);
+
+    // Actor id used for records that do not belong to a vendor or customer thread.
+    public static final int NO_ACTOR = -1;
+
+    // Ring storage, one slot per record.
+    private final byte[] events;
+    private final int[] actors;
+    private final long[] firstValues;
+    private final long[] secondValues;
+    private final int capacity;
+
+    // Total number of records written since the last clear.
+    private long written;
+
+    // Emit every n-th record of each event to SLF4J (1 emits everything that is enabled).
+    // WARN and ERROR records are never sampled away.
+    private final int slf4jSampleRate;
+    private final long[] eventCounts = new long[LogEvent.values().length];
+
+    // Records lock wait and hold times when profiling is enabled.
+    private final ContentionProfiler profiler;
+
+    // Thread names interned to small integer ids.
+    private final Map<String, Integer> actorIds = new ConcurrentHashMap<>();
+    private final List<String> actorNames = new ArrayList<>();
+
+    /**
+     * Constructor for LoggingService.
+     *
+     * @param capacity        The number of records kept before the oldest are overwritten.
+     * @param slf4jSampleRate Emit only every n-th INFO or DEBUG record of each event to SLF4J.
+     * @param profiler        The profiler that measures contention on the ring.
+     */
+    public LoggingService(@Value("${ticket.log.capacity:65536}") int capacity,
+                          @Value("${ticket.log.slf4j-sample-rate:1}") int slf4jSampleRate,
+                          ContentionProfiler profiler) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Log capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        this.events = new byte[capacity];
+        this.actors = new int[capacity];
+        this.firstValues = new long[capacity];
+        this.secondValues = new long[capacity];
+        this.slf4jSampleRate = Math.max(1, slf4jSampleRate);
+        this.profiler = profiler;
+    }
+
+    /**
+     * Registers a thread name and returns the id to record events with.
+     * Registering the same name twice returns the same id.
+     *
+     * @param name The thread name.
+     * @return The actor id for the name.
+     */
+    public int registerActor(String name) {
+        return actorIds.computeIfAbsent(name, key -> {
+            synchronized (actorNames) {
+                actorNames.add(key);
+                return actorNames.size() - 1;
+            }
+        });
+    }
+
+    /**
+     * Records an event that has no actor or fields.
+     *
+     * @param event The event to record.
+     */
+    public void addLog(LogEvent event) {
+        addLog(event, NO_ACTOR, 0, 0);
+    }
+
+    /**
+     * Records an event without an actor.
+     *
+     * @param event The event to record.
+     * @param a     The first field of the event.
+     * @param b     The second field of the event.
+     */
+    public void addLog(LogEvent event, long a, long b) {
+        addLog(event, NO_ACTOR, a, b);
+    }
+
+    /**
+     * Records an event in the ring and, if enabled, emits it to SLF4J.
+     *
+     * @param event The event to record.
+     * @param actor The actor id returned by {@link #registerActor(String)}, or {@link #NO_ACTOR}.
+     * @param a     The first field of the event.
+     * @param b     The second field of the event.
+     */
+    public void addLog(LogEvent event, int actor, long a, long b) {
+        long eventCount;
+        long requested = profiler.requesting(Site.LOG_APPEND, this);
+        synchronized (this) {
+            long acquired = profiler.acquired(Site.LOG_APPEND, requested);
+            try {
+                eventCount = eventCounts[event.ordinal()]++;
+                int slot = (int) (written++ % capacity);
+                events[slot] = (byte) event.ordinal();
+                actors[slot] = actor;
+                firstValues[slot] = a;
+                secondValues[slot] = b;
+            } finally {
+                profiler.released(Site.LOG_APPEND, requested, acquired);
+            }
+        }
+        boolean sampled = event.getLevel().toInt() >= Level.WARN.toInt() || eventCount % slf4jSampleRate == 0;
+        if (sampled && logger.isEnabledForLevel(event.getLevel())) {
+            logger.atLevel(event.getLevel()).log(event.render(actorName(actor), a, b));
+        }
+    }
+
+    /**
+     * Renders the records currently held in the ring, oldest first.
+     *
+     * @return The rendered log lines.
+     */
+    public List<String> getLogs() {
+        int count;
+        byte[] eventCopy;
+        int[] actorCopy;
+        long[] firstCopy;
+        long[] secondCopy;
+        long requested = profiler.requesting(Site.LOG_READ, this);
+        synchronized (this) {
+            long acquired = profiler.acquired(Site.LOG_READ, requested);
+            try {
+                count = (int) Math.min(written, capacity);
+                int start = (int) ((written - count) % capacity);
+                eventCopy = new byte[count];
+                actorCopy = new int[count];
+                firstCopy = new long[count];
+                secondCopy = new long[count];
+                for (int i = 0; i < count; i++) {
+                    int slot = (start + i) % capacity;
+                    eventCopy[i] = events[slot];
+                    actorCopy[i] = actors[slot];
+                    firstCopy[i] = firstValues[slot];
+                    secondCopy[i] = secondValues[slot];
+                }
+            } finally {
+                profiler.released(Site.LOG_READ, requested, acquired);
+            }
+        }
+
+        // Render outside the lock so writers are not held up by string building.
+        List<String> logs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LogEvent event = LogEvent.fromCode(eventCopy[i]);
+            logs.add(event.render(actorName(actorCopy[i]), firstCopy[i], secondCopy[i]));
+        }
+        return logs;
     }
 
-    public synchronized List<String> getLogs() {
-        return new ArrayList<>(logs);
+    /**
+     * Discards all records held in the ring.
+     */
+    public void clearLogs() {
+        long requested = profiler.requesting(Site.LOG_CLEAR, this);
+        synchronized (this) {
+            long acquired = profiler.acquired(Site.LOG_CLEAR, requested);
+            try {
+                written = 0;
+            } finally {
+                profiler.released(Site.LOG_CLEAR, requested, acquired);
+            }
+        }
     }
 
-    public synchronized void clearLogs() {
-        logs.clear();
+    /**
+     * Resolves an actor id back to the thread name it was registered with.
+     *
+     * @param actor The actor id.
+     * @return The thread name, or null for {@link #NO_ACTOR}.
+     */
+    private String actorName(int actor) {
+        if (actor == NO_ACTOR) {
+            return null;
+        }
+        synchronized (actorNames) {
+            return actorNames.get(actor);
+        }
     }
 }
@@ -48,9 +48,9 @@ public class MainService {
     /**
      * Starts the system by retrieving the configuration and initializing the threads for ticket processing.
      * @param ticketPool the pool of tickets for live logging and thread operations
-     * @throws IllegalStateException if no configuration is found in the repository
+     * @throws IllegalStateException if no configuration is found in the repository or the system is already running
      */
-    public void startSystem(TicketPool ticketPool) {
+    public synchronized void startSystem(TicketPool ticketPool) {
         Optional<MainConfig> config = getConfig(); // Get the configuration
         if (config.isEmpty()) {
             throw new IllegalStateException("No configuration found. Please configure the system first.");
@@ -60,10 +60,26 @@ public class MainService {
         threadService.startThreads(ticketPool); // Start the threads for ticket processing
     }
 
+    /**
+     * Starts the system again after a restart, resuming each thread with the quota it had left.
+     * @param ticketPool the pool of tickets, already restored
+     * @param vendorQuotas tickets each vendor has left to release
+     * @param customerQuotas retrievals each customer has left to make
+     * @throws IllegalStateException if no configuration is found in the repository or the system is already running
+     */
+    public synchronized void resumeSystem(TicketPool ticketPool, int[] vendorQuotas, int[] customerQuotas) {
+        Optional<MainConfig> config = getConfig(); // Get the configuration
+        if (config.isEmpty()) {
+            throw new IllegalStateException("No configuration found. Please configure the system first.");
+        }
+        threadService.configure(config.get(), ticketPool, vendorQuotas, customerQuotas);
+        threadService.startThreads(ticketPool); // Start the threads for ticket processing
+    }
+
     /**
      * Stops the system by stopping all threads.
      */
-    public void stopSystem() {
+    public synchronized void stopSystem() {
         threadService.stopThreads(); // Stop all threads related to ticket processing
     }
 }
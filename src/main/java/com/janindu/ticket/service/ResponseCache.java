@@ -0,0 +1,174 @@
+package com.janindu.ticket.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.janindu.ticket.model.MainConfig;
+import com.janindu.ticket.model.TicketPool;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * ResponseCache keeps the serialized JSON of the hot read endpoints, so constant polling
+ * only serializes when the data changes and unchanged polls can be answered with 304.
+ * The ticket count is serialized again when the count changes, and its ETag is the count itself.
+ * The configuration is replaced when it is saved through this instance, and reloaded at a fixed
+ * interval to pick up changes made elsewhere; its ETag is an MD5 digest of the JSON body.
+ */
+@Service
+public class ResponseCache {
+
+    private final TicketPool ticketPool;
+    private final MainService mainService;
+    private final ObjectMapper objectMapper;
+    private final long configRefreshMillis;
+
+    private volatile CachedResponse ticketCount;
+    private final AtomicReference<ConfigEntry> config = new AtomicReference<>();
+
+    /**
+     * Constructor for ResponseCache.
+     *
+     * @param ticketPool          The pool whose ticket count is served.
+     * @param mainService         Service used to load the configuration.
+     * @param objectMapper        Mapper used to serialize responses.
+     * @param configRefreshMillis How long a cached configuration is served before it is reloaded.
+     */
+    public ResponseCache(TicketPool ticketPool, MainService mainService, ObjectMapper objectMapper,
+                         @Value("${ticket.cache.config-refresh-ms:1000}") long configRefreshMillis) {
+        this.ticketPool = ticketPool;
+        this.mainService = mainService;
+        this.objectMapper = objectMapper;
+        this.configRefreshMillis = configRefreshMillis;
+    }
+
+    /**
+     * Gets the ticket count response, serializing it again only if the count changed.
+     * The count is read without taking the pool monitor.
+     *
+     * @return The cached ticket count response.
+     */
+    public CachedResponse getTicketCount() {
+        int count = ticketPool.getCurrentTicketCount();
+        CachedResponse cached = ticketCount;
+        if (cached == null || cached.version != count) {
+            cached = new CachedResponse(serialize(Map.of("ticketsAvailable", count)), count, String.valueOf(count));
+            ticketCount = cached;
+        }
+        return cached;
+    }
+
+    /**
+     * Gets the configuration response, reloading it if it is older than the refresh interval.
+     *
+     * @return The cached configuration response, or empty if the system is not configured.
+     */
+    public Optional<CachedResponse> getConfig() {
+        long now = System.currentTimeMillis();
+        ConfigEntry cached = config.get();
+        if (cached == null || now - cached.loadedAt >= configRefreshMillis) {
+            ConfigEntry loaded = new ConfigEntry(mainService.getConfig().map(this::configResponse), now);
+            // A configuration saved while this one was loading is newer, so it is kept.
+            if (!config.compareAndSet(cached, loaded)) {
+                return config.get().response;
+            }
+            cached = loaded;
+        }
+        return cached.response;
+    }
+
+    /**
+     * Replaces the cached configuration with one that was just saved.
+     *
+     * @param savedConfig The saved configuration.
+     */
+    public void putConfig(MainConfig savedConfig) {
+        config.set(new ConfigEntry(Optional.of(configResponse(savedConfig)), System.currentTimeMillis()));
+    }
+
+    private CachedResponse configResponse(MainConfig mainConfig) {
+        byte[] body = serialize(mainConfig);
+        return new CachedResponse(body, 0, DigestUtils.md5DigestAsHex(body));
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize response", e);
+        }
+    }
+
+    /**
+     * A serialized JSON response body and its ETag.
+     */
+    public static final class CachedResponse {
+        private final byte[] body;
+        private final String eTag;
+        private final long version; // Value the body was built from, used to detect changes
+
+        CachedResponse(byte[] body, long version, String tag) {
+            this.body = body;
+            this.eTag = "\"" + tag + "\"";
+            this.version = version;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        /**
+         * Builds the HTTP response, answering 304 without a body if the client already has this version.
+         *
+         * @param ifNoneMatch The If-None-Match request header, or null.
+         * @return ResponseEntity containing the JSON body, or a 304 if it has not changed
+         */
+        public ResponseEntity<byte[]> toResponseEntity(String ifNoneMatch) {
+            if (matches(ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(eTag)
+                        .cacheControl(CacheControl.noCache())
+                        .build();
+            }
+            return ResponseEntity.ok()
+                    .eTag(eTag)
+                    .cacheControl(CacheControl.noCache())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(body);
+        }
+
+        private boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(eTag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class ConfigEntry {
+        private final Optional<CachedResponse> response;
+        private final long loadedAt;
+
+        ConfigEntry(Optional<CachedResponse> response, long loadedAt) {
+            this.response = response;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package com.janindu.ticket.service;
+
+import com.janindu.ticket.cluster.TicketPartition;
+import com.janindu.ticket.model.MainConfig;
+import com.janindu.ticket.model.TicketPool;
+import com.janindu.ticket.service.ContentionProfiler.Site;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * SnapshotService periodically writes the ticket pool, its counters and the quota each vendor and
+ * customer has left to a compact binary file, and restores them when the application starts so a
+ * restart during a sale keeps the same inventory.
+ *
+ * The restore runs as a lifecycle phase before the web server accepts requests, so a request
+ * cannot start the system while it is being restored. Warm start is not supported with
+ * partitioned inventory, because the coordinator would hand out the restored ticket ids again.
+ *
+ * Snapshot layout (big endian): magic, version, running flag, sale id, released, purchased and
+ * wait counters, vendor, customer and ticket counts, the vendor quotas, the customer quotas,
+ * the ticket ids oldest first, and a CRC32 of everything before it.
+ */
+@Service
+@ConditionalOnProperty(name = "ticket.snapshot.enabled", havingValue = "true")
+public class SnapshotService implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotService.class);
+
+    private static final int MAGIC = 0x544B5453; // "TKTS"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 4 + 4 + 1 + 8 + 8 + 8 + 8 + 4 + 4 + 4;
+    private static final String FILE_NAME = "pool.snapshot";
+
+    // Starts before the web server and stops after it.
+    private static final int PHASE = 0;
+
+    // Longest time to wait for each vendor and customer thread to finish on shutdown.
+    private static final long HALT_TIMEOUT_MILLIS = 2_000;
+
+    private final TicketPool ticketPool;
+    private final ThreadService threadService;
+    private final MainService mainService;
+    private final LoggingService loggingService;
+    private final ContentionProfiler profiler;
+    private final ObjectProvider<TicketPartition> ticketPartition;
+    private final Path snapshotFile;
+    private final Path tempFile;
+    private final long intervalMillis;
+    private ScheduledExecutorService snapshotWriter;
+    private volatile boolean started;
+
+    // State at the last written snapshot, so an idle pool is not written again.
+    private long lastReleased = -1;
+    private long lastPurchased = -1;
+    private long lastWaits = -1;
+    private boolean lastRunning;
+
+    /**
+     * Constructor for SnapshotService.
+     *
+     * @param ticketPool      The pool to snapshot and restore.
+     * @param threadService   Service used to read the running state and remaining quotas.
+     * @param mainService     Service used to resume the system after a warm start.
+     * @param loggingService  Service to handle logging operations.
+     * @param profiler        Profiler that measures contention on the pool.
+     * @param ticketPartition This node's share of the inventory, if the inventory is partitioned.
+     * @param directory       Directory the snapshot is written to.
+     * @param intervalMillis  Interval between snapshots in milliseconds.
+     */
+    public SnapshotService(TicketPool ticketPool, ThreadService threadService, MainService mainService,
+                           LoggingService loggingService, ContentionProfiler profiler,
+                           ObjectProvider<TicketPartition> ticketPartition,
+                           @Value("${ticket.snapshot.directory:snapshots}") String directory,
+                           @Value("${ticket.snapshot.interval-ms:1000}") long intervalMillis) {
+        this.ticketPool = ticketPool;
+        this.threadService = threadService;
+        this.mainService = mainService;
+        this.loggingService = loggingService;
+        this.profiler = profiler;
+        this.ticketPartition = ticketPartition;
+        this.snapshotFile = Path.of(directory, FILE_NAME);
+        this.tempFile = Path.of(directory, FILE_NAME + ".tmp");
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * Restores the latest snapshot, resumes the system if it was running, and starts periodic snapshots.
+     */
+    @Override
+    public void start() {
+        if (ticketPartition.getIfAvailable() != null) {
+            logger.warn("Warm start is not supported with partitioned inventory; not restoring {}", snapshotFile);
+        } else {
+            restore().ifPresent(this::resume);
+        }
+
+        snapshotWriter = Executors.newSingleThreadScheduledExecutor();
+        snapshotWriter.scheduleWithFixedDelay(this::writeSnapshot, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        started = true;
+    }
+
+    /**
+     * Stops periodic snapshots, halts the vendor and customer threads so no sale happens after
+     * the final snapshot, and writes it. The snapshot still records the system as running.
+     */
+    @Override
+    public void stop() {
+        if (snapshotWriter != null) {
+            snapshotWriter.shutdownNow();
+        }
+        try {
+            if (!threadService.haltThreads(HALT_TIMEOUT_MILLIS)) {
+                logger.warn("Vendor and customer threads did not stop in time; the final snapshot may miss changes");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while stopping vendor and customer threads for the final snapshot");
+        }
+        writeSnapshot();
+        started = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return started;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * Writes a snapshot if the pool changed since the last one.
+     * The file is replaced atomically, so a crash mid-write leaves the previous snapshot intact.
+     */
+    synchronized void writeSnapshot() {
+        Snapshot snapshot;
+        long requested = profiler.requesting(Site.SNAPSHOT_CAPTURE, ticketPool);
+        synchronized (ticketPool) {
+            long acquired = profiler.acquired(Site.SNAPSHOT_CAPTURE, requested);
+            try {
+                long released = ticketPool.getReleasedCount();
+                long purchased = ticketPool.getPurchasedCount();
+                long waits = ticketPool.getWaitCount();
+                boolean running = threadService.isRunning();
+                if (released == lastReleased && purchased == lastPurchased && waits == lastWaits
+                        && running == lastRunning) {
+                    return;
+                }
+                // Quotas only change while the pool lock is held, so they match the pool contents.
+                snapshot = new Snapshot(running, threadService.getSaleId(), released, purchased, waits,
+                        threadService.getVendorQuotas(), threadService.getCustomerQuotas(), ticketPool.getTicketIds());
+            } finally {
+                profiler.released(Site.SNAPSHOT_CAPTURE, requested, acquired);
+            }
+        }
+
+        try {
+            write(snapshot, snapshotFile, tempFile);
+            lastReleased = snapshot.released;
+            lastPurchased = snapshot.purchased;
+            lastWaits = snapshot.waits;
+            lastRunning = snapshot.running;
+        } catch (IOException e) {
+            logger.warn("Failed to write pool snapshot to {}", snapshotFile, e);
+        }
+    }
+
+    /**
+     * Memory-maps the latest snapshot and restores it into the ticket pool.
+     *
+     * @return The restored snapshot, or empty if there is none or it could not be read.
+     */
+    private Optional<Snapshot> restore() {
+        if (!Files.exists(snapshotFile)) {
+            return Optional.empty();
+        }
+        Snapshot snapshot;
+        try {
+            snapshot = read(snapshotFile);
+        } catch (IOException e) {
+            logger.warn("Failed to read pool snapshot {}", snapshotFile, e);
+            return Optional.empty();
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring pool snapshot {}: {}", snapshotFile, e.getMessage());
+            return Optional.empty();
+        }
+
+        ticketPool.restore(snapshot.ticketIds, snapshot.released, snapshot.purchased, snapshot.waits);
+        loggingService.addLog(LogEvent.SNAPSHOT_RESTORED, snapshot.ticketIds.length, 0);
+        return Optional.of(snapshot);
+    }
+
+    /**
+     * Starts the system again with the quotas from the snapshot, if it was running
+     * and the snapshot belongs to the saved configuration.
+     *
+     * @param snapshot The restored snapshot.
+     */
+    private void resume(Snapshot snapshot) {
+        if (!snapshot.running) {
+            return;
+        }
+        Optional<MainConfig> config = mainService.getConfig();
+        if (config.isEmpty() || config.get().getId() != snapshot.saleId
+                || config.get().getNumberOfVendors() != snapshot.vendorQuotas.length
+                || config.get().getNumberOfCustomers() != snapshot.customerQuotas.length) {
+            logger.warn("Not resuming the system: snapshot {} does not match the saved configuration", snapshotFile);
+            return;
+        }
+        try {
+            mainService.resumeSystem(ticketPool, snapshot.vendorQuotas, snapshot.customerQuotas);
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            logger.warn("Not resuming the system: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Encodes a snapshot and atomically replaces the file with it.
+     *
+     * @param snapshot The snapshot to write.
+     * @param file     The snapshot file.
+     * @param tempFile The file written first and then moved over the snapshot file.
+     * @throws IOException if the file cannot be written.
+     */
+    static void write(Snapshot snapshot, Path file, Path tempFile) throws IOException {
+        ByteBuffer buffer = encode(snapshot);
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Memory-maps a snapshot file and decodes it.
+     *
+     * @param file The snapshot file.
+     * @return The decoded snapshot.
+     * @throws IOException              if the file cannot be read.
+     * @throws IllegalArgumentException if the file is not a valid snapshot.
+     */
+    static Snapshot read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return decode(buffer);
+        }
+    }
+
+    static ByteBuffer encode(Snapshot snapshot) {
+        int vendorCount = snapshot.vendorQuotas.length;
+        int customerCount = snapshot.customerQuotas.length;
+        int ticketCount = snapshot.ticketIds.length;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + (vendorCount + customerCount) * Integer.BYTES
+                + ticketCount * Long.BYTES + Long.BYTES);
+        buffer.putInt(MAGIC)
+                .putInt(VERSION)
+                .put((byte) (snapshot.running ? 1 : 0))
+                .putLong(snapshot.saleId)
+                .putLong(snapshot.released)
+                .putLong(snapshot.purchased)
+                .putLong(snapshot.waits)
+                .putInt(vendorCount)
+                .putInt(customerCount)
+                .putInt(ticketCount);
+        for (int quota : snapshot.vendorQuotas) {
+            buffer.putInt(quota);
+        }
+        for (int quota : snapshot.customerQuotas) {
+            buffer.putInt(quota);
+        }
+        buffer.asLongBuffer().put(snapshot.ticketIds);
+        buffer.position(buffer.position() + ticketCount * Long.BYTES);
+        buffer.putLong(checksum(buffer.duplicate().flip()));
+        return buffer.flip();
+    }
+
+    static Snapshot decode(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_BYTES + Long.BYTES
+                || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IllegalArgumentException("unknown format");
+        }
+        boolean running = buffer.get() == 1;
+        long saleId = buffer.getLong();
+        long released = buffer.getLong();
+        long purchased = buffer.getLong();
+        long waits = buffer.getLong();
+        int vendorCount = buffer.getInt();
+        int customerCount = buffer.getInt();
+        int ticketCount = buffer.getInt();
+        if (vendorCount < 0 || customerCount < 0 || ticketCount < 0
+                || buffer.remaining() != ((long) vendorCount + customerCount) * Integer.BYTES
+                + (long) ticketCount * Long.BYTES + Long.BYTES) {
+            throw new IllegalArgumentException("truncated");
+        }
+        int[] vendorQuotas = new int[vendorCount];
+        for (int i = 0; i < vendorCount; i++) {
+            vendorQuotas[i] = buffer.getInt();
+        }
+        int[] customerQuotas = new int[customerCount];
+        for (int i = 0; i < customerCount; i++) {
+            customerQuotas[i] = buffer.getInt();
+        }
+        long[] ticketIds = new long[ticketCount];
+        buffer.asLongBuffer().get(ticketIds);
+        buffer.position(buffer.position() + ticketCount * Long.BYTES);
+        long expectedChecksum = buffer.getLong();
+        if (checksum(buffer.duplicate().flip().limit(buffer.limit() - Long.BYTES)) != expectedChecksum) {
+            throw new IllegalArgumentException("checksum mismatch");
+        }
+        return new Snapshot(running, saleId, released, purchased, waits, vendorQuotas, customerQuotas, ticketIds);
+    }
+
+    private static long checksum(ByteBuffer data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return crc.getValue();
+    }
+
+    /**
+     * The state held in one snapshot.
+     */
+    static final class Snapshot {
+        final boolean running;
+        final long saleId; // Id of the configuration the quotas belong to
+        final long released;
+        final long purchased;
+        final long waits;
+        final int[] vendorQuotas;
+        final int[] customerQuotas;
+        final long[] ticketIds;
+
+        Snapshot(boolean running, long saleId, long released, long purchased, long waits,
+                 int[] vendorQuotas, int[] customerQuotas, long[] ticketIds) {
+            this.running = running;
+            this.saleId = saleId;
+            this.released = released;
+            this.purchased = purchased;
+            this.waits = waits;
+            this.vendorQuotas = vendorQuotas;
+            this.customerQuotas = customerQuotas;
+            this.ticketIds = ticketIds;
+        }
+    }
+}
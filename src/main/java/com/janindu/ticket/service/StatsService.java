@@ -0,0 +1,200 @@
+package com.janindu.ticket.service;
+
+import com.janindu.ticket.model.StatsBucket;
+import com.janindu.ticket.model.TicketPool;
+import com.janindu.ticket.service.ContentionProfiler.Site;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * StatsService keeps an in-memory time series of ticket pool statistics.
+ * Every sample is folded into one ring of buckets per resolution (raw, 1s, 10s, 1m),
+ * so each resolution is pre-aggregated and the memory used is fixed up front.
+ */
+@Service
+public class StatsService {
+
+    // Resolution name to use when a caller does not ask for one.
+    public static final String DEFAULT_RESOLUTION = "1s";
+
+    private final long resolutionMillis;
+    private final Map<String, Series> series = new LinkedHashMap<>();
+    private final ContentionProfiler profiler;
+
+    // Counter values seen at the previous sample, used to compute deltas.
+    private boolean sampled;
+    private long lastReleased;
+    private long lastPurchased;
+    private long lastWaits;
+
+    /**
+     * Constructor for StatsService.
+     *
+     * @param resolutionMillis The sampling interval in milliseconds.
+     * @param buckets          The number of buckets kept per resolution.
+     * @param profiler         Profiler that measures contention on the sampled pool.
+     */
+    public StatsService(@Value("${ticket.stats.resolution-ms:250}") long resolutionMillis,
+                        @Value("${ticket.stats.buckets:600}") int buckets,
+                        ContentionProfiler profiler) {
+        if (resolutionMillis < 1) {
+            throw new IllegalArgumentException("Stats resolution must be at least 1 ms");
+        }
+        if (buckets < 1) {
+            throw new IllegalArgumentException("Stats bucket count must be at least 1");
+        }
+        this.resolutionMillis = resolutionMillis;
+        this.profiler = profiler;
+        series.put("raw", new Series(resolutionMillis, resolutionMillis, buckets));
+        series.put("1s", new Series(1_000, resolutionMillis, buckets));
+        series.put("10s", new Series(10_000, resolutionMillis, buckets));
+        series.put("1m", new Series(60_000, resolutionMillis, buckets));
+    }
+
+    /**
+     * Gets the interval at which {@link #sample(TicketPool)} should be called.
+     *
+     * @return The sampling interval in milliseconds.
+     */
+    public long getResolutionMillis() {
+        return resolutionMillis;
+    }
+
+    /**
+     * Gets the names of the supported resolutions.
+     *
+     * @return The resolution names, finest first.
+     */
+    public Set<String> getResolutions() {
+        return series.keySet();
+    }
+
+    /**
+     * Takes one sample of the ticket pool and folds it into every resolution.
+     *
+     * @param ticketPool The ticket pool to sample.
+     */
+    public void sample(TicketPool ticketPool) {
+        int occupancy;
+        long released;
+        long purchased;
+        long waits;
+        long requested = profiler.requesting(Site.STATS_SAMPLE, ticketPool);
+        synchronized (ticketPool) {
+            long acquired = profiler.acquired(Site.STATS_SAMPLE, requested);
+            try {
+                occupancy = ticketPool.getCurrentTicketCount();
+                released = ticketPool.getReleasedCount();
+                purchased = ticketPool.getPurchasedCount();
+                waits = ticketPool.getWaitCount();
+            } finally {
+                profiler.released(Site.STATS_SAMPLE, requested, acquired);
+            }
+        }
+        record(System.currentTimeMillis(), occupancy, released, purchased, waits);
+    }
+
+    /**
+     * Gets the buckets held for a resolution, oldest first.
+     *
+     * @param resolution One of the names returned by {@link #getResolutions()}.
+     * @return The buckets for the resolution.
+     * @throws IllegalArgumentException if the resolution is not supported.
+     */
+    public synchronized List<StatsBucket> getBuckets(String resolution) {
+        Series selected = series.get(resolution);
+        if (selected == null) {
+            throw new IllegalArgumentException("Unknown resolution: " + resolution + ". Use one of " + series.keySet());
+        }
+        return selected.toBuckets();
+    }
+
+    private synchronized void record(long now, int occupancy, long released, long purchased, long waits) {
+        long releasedDelta = sampled ? released - lastReleased : 0;
+        long purchasedDelta = sampled ? purchased - lastPurchased : 0;
+        long waitsDelta = sampled ? waits - lastWaits : 0;
+        sampled = true;
+        lastReleased = released;
+        lastPurchased = purchased;
+        lastWaits = waits;
+
+        for (Series s : series.values()) {
+            s.add(now, occupancy, releasedDelta, purchasedDelta, waitsDelta);
+        }
+    }
+
+    /**
+     * Fixed size ring of buckets of one width, stored in parallel primitive arrays.
+     */
+    static final class Series {
+        private final long bucketMillis;
+        private final long sampleMillis; // Interval between samples
+        private final long[] starts;
+        private final int[] samples;
+        private final long[] occupancySums;
+        private final int[] occupancyMins;
+        private final int[] occupancyMaxes;
+        private final long[] released;
+        private final long[] purchased;
+        private final long[] waits;
+
+        private int head = -1; // Slot of the newest bucket
+        private int size; // Number of buckets in use
+
+        Series(long bucketMillis, long sampleMillis, int capacity) {
+            this.bucketMillis = bucketMillis;
+            this.sampleMillis = sampleMillis;
+            this.starts = new long[capacity];
+            this.samples = new int[capacity];
+            this.occupancySums = new long[capacity];
+            this.occupancyMins = new int[capacity];
+            this.occupancyMaxes = new int[capacity];
+            this.released = new long[capacity];
+            this.purchased = new long[capacity];
+            this.waits = new long[capacity];
+        }
+
+        void add(long now, int occupancy, long releasedDelta, long purchasedDelta, long waitsDelta) {
+            long start = now - now % bucketMillis;
+            if (head < 0 || starts[head] != start) {
+                head = (head + 1) % starts.length;
+                size = Math.min(size + 1, starts.length);
+                starts[head] = start;
+                samples[head] = 0;
+                occupancySums[head] = 0;
+                occupancyMins[head] = occupancy;
+                occupancyMaxes[head] = occupancy;
+                released[head] = 0;
+                purchased[head] = 0;
+                waits[head] = 0;
+            }
+            samples[head]++;
+            occupancySums[head] += occupancy;
+            occupancyMins[head] = Math.min(occupancyMins[head], occupancy);
+            occupancyMaxes[head] = Math.max(occupancyMaxes[head], occupancy);
+            released[head] += releasedDelta;
+            purchased[head] += purchasedDelta;
+            waits[head] += waitsDelta;
+        }
+
+        List<StatsBucket> toBuckets() {
+            List<StatsBucket> buckets = new ArrayList<>(size);
+            for (int i = size - 1; i >= 0; i--) {
+                int slot = Math.floorMod(head - i, starts.length);
+                // A bucket is only partly sampled while it fills, or when the system started or stopped
+                // during it, so its rates only cover the samples it holds.
+                long coveredMillis = Math.min(bucketMillis, samples[slot] * sampleMillis);
+                buckets.add(new StatsBucket(starts[slot], bucketMillis, coveredMillis, samples[slot],
+                        (double) occupancySums[slot] / samples[slot], occupancyMins[slot], occupancyMaxes[slot],
+                        released[slot], purchased[slot], waits[slot]));
+            }
+            return buckets;
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.janindu.ticket.service;
 
+import com.janindu.ticket.cluster.TicketPartition;
 import com.janindu.ticket.model.MainConfig;
 import com.janindu.ticket.model.TicketPool;
 import com.janindu.ticket.model.Customer;
+import com.janindu.ticket.model.TicketSource;
 import com.janindu.ticket.model.Vendor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -14,24 +17,36 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * Service class responsible for managing threads related to Vendors and Customers,
- * as well as logging the live ticket count.
+ * as well as sampling the ticket pool statistics.
  */
 @Service
 public class ThreadService {
 
     private final LoggingService loggingService;
+    private final StatsService statsService;
+    private final ObjectProvider<TicketPartition> ticketPartition; // Present in partitioned inventory mode
+    private final ContentionProfiler profiler;
     private List<Thread> threads = new ArrayList<>();
+    private volatile List<Vendor> vendors = List.of(); // Vendors of the current configuration
+    private volatile List<Customer> customers = List.of(); // Customers of the current configuration
+    private volatile long saleId = -1; // Id of the configuration the threads were created from
     private volatile boolean running = false; // Indicates if threads are running
-    private ScheduledExecutorService liveCountLogger;
-    private final int LOG_INTERVAL = 1; // Log interval in seconds
+    private ScheduledExecutorService statsSampler;
 
     /**
-     * Constructor to initialize the ThreadService with a LoggingService dependency.
+     * Constructor to initialize the ThreadService with its dependencies.
      *
-     * @param loggingService Service to handle logging operations.
+     * @param loggingService  Service to handle logging operations.
+     * @param statsService    Service that stores the ticket pool statistics.
+     * @param ticketPartition This node's share of the inventory, if the inventory is partitioned.
+     * @param profiler        Profiler passed to Vendors and Customers to measure pool contention.
      */
-    public ThreadService(LoggingService loggingService) {
+    public ThreadService(LoggingService loggingService, StatsService statsService,
+                         ObjectProvider<TicketPartition> ticketPartition, ContentionProfiler profiler) {
         this.loggingService = loggingService;
+        this.statsService = statsService;
+        this.ticketPartition = ticketPartition;
+        this.profiler = profiler;
     }
 
     /**
@@ -41,20 +56,48 @@ public class ThreadService {
      * @param ticketPool The shared TicketPool resource for Vendors and Customers.
      */
     public void configure(MainConfig config, TicketPool ticketPool) {
+        configure(config, ticketPool, null, null);
+    }
+
+    /**
+     * Configures the system, resuming each Vendor and Customer with the quota it had left,
+     * e.g. from a snapshot taken before a restart.
+     *
+     * @param config         The main configuration object containing the number of vendors and customers.
+     * @param ticketPool     The shared TicketPool resource for Vendors and Customers.
+     * @param vendorQuotas   Tickets each vendor has left to release, or null for the configured rate.
+     * @param customerQuotas Retrievals each customer has left to make, or null for the configured rate.
+     * @throws IllegalStateException if threads are already running.
+     * @throws IllegalArgumentException if a quota array does not match the configured number of threads.
+     */
+    public synchronized void configure(MainConfig config, TicketPool ticketPool, int[] vendorQuotas,
+                                       int[] customerQuotas) {
+        // Checked before anything is replaced, so the running threads keep reporting their own quotas.
+        if (running) {
+            throw new IllegalStateException("Threads are already running.");
+        }
+        if (vendorQuotas != null && vendorQuotas.length != config.getNumberOfVendors()) {
+            throw new IllegalArgumentException("Expected " + config.getNumberOfVendors() + " vendor quotas");
+        }
+        if (customerQuotas != null && customerQuotas.length != config.getNumberOfCustomers()) {
+            throw new IllegalArgumentException("Expected " + config.getNumberOfCustomers() + " customer quotas");
+        }
         threads.clear(); // Clear any existing threads
-        createVendorThreads(config, ticketPool); // Create Vendor threads
-        createCustomerThreads(config, ticketPool); // Create Customer threads
+        TicketSource ticketSource = joinInventory(config, ticketPool); // Choose where released ticket ids come from
+        createVendorThreads(config, ticketPool, ticketSource, vendorQuotas); // Create Vendor threads
+        createCustomerThreads(config, ticketPool, customerQuotas); // Create Customer threads
+        saleId = config.getId();
 
-        logMessage("System configured with " + config.getNumberOfVendors() + " vendors and " + config.getNumberOfCustomers() + " customers.");
+        loggingService.addLog(LogEvent.SYSTEM_CONFIGURED, config.getNumberOfVendors(), config.getNumberOfCustomers());
     }
 
     /**
-     * Starts all configured threads and the live ticket count logger.
+     * Starts all configured threads and the statistics sampler.
      *
      * @param ticketPool The shared TicketPool resource.
      * @throws IllegalStateException if threads are already running.
      */
-    public void startThreads(TicketPool ticketPool) {
+    public synchronized void startThreads(TicketPool ticketPool) {
         if (running) {
             throw new IllegalStateException("Threads are already running.");
         }
@@ -63,18 +106,18 @@ public class ThreadService {
         // Start Vendor and Customer threads
         threads.forEach(Thread::start);
 
-        // Start live ticket count logger
-        startLiveCountLogger(ticketPool);
+        // Start sampling pool statistics
+        startStatsSampler(ticketPool);
 
-        logMessage("All threads started.");
+        loggingService.addLog(LogEvent.THREADS_STARTED);
     }
 
     /**
-     * Stops all running threads and the live ticket count logger.
+     * Stops all running threads and the statistics sampler.
      *
      * @throws IllegalStateException if threads are not currently running.
      */
-    public void stopThreads() {
+    public synchronized void stopThreads() {
         if (!running) {
             throw new IllegalStateException("Threads are not running.");
         }
@@ -82,72 +125,152 @@ public class ThreadService {
         // Interrupt all threads
         threads.forEach(Thread::interrupt);
 
-        // Stop the live count logger
-        stopLiveCountLogger();
+        // Stop the statistics sampler
+        stopStatsSampler();
+
+        // Hand unreleased inventory back to the cluster
+        ticketPartition.ifAvailable(TicketPartition::leave);
 
         running = false;
-        logMessage("All threads stopped.");
+        loggingService.addLog(LogEvent.THREADS_STOPPED);
+    }
+
+    /**
+     * Stops the Vendor and Customer threads for shutdown and waits for them to finish, so the pool
+     * no longer changes. The system is still reported as running, so a final snapshot resumes it.
+     *
+     * @param timeoutMillis The longest time to wait for each thread.
+     * @return true if every thread finished, false if one was still running after the timeout.
+     * @throws InterruptedException If the calling thread is interrupted while waiting.
+     */
+    public synchronized boolean haltThreads(long timeoutMillis) throws InterruptedException {
+        if (!running) {
+            return true;
+        }
+        threads.forEach(Thread::interrupt);
+        stopStatsSampler();
+
+        boolean finished = true;
+        for (Thread thread : threads) {
+            thread.join(timeoutMillis);
+            finished &= !thread.isAlive();
+        }
+        return finished;
+    }
+
+    /**
+     * Checks whether the Vendor and Customer threads are running.
+     *
+     * @return true if the threads are running, false otherwise.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Gets the id of the configuration the current threads were created from.
+     *
+     * @return The configuration id, or -1 if the system was never configured.
+     */
+    public long getSaleId() {
+        return saleId;
+    }
+
+    /**
+     * Gets the tickets each vendor has left to release. Called while holding the
+     * pool lock, the result is consistent with the pool contents.
+     *
+     * @return The remaining quota of each vendor, in thread order.
+     */
+    public int[] getVendorQuotas() {
+        return vendors.stream().mapToInt(Vendor::getRemaining).toArray();
+    }
+
+    /**
+     * Gets the retrievals each customer has left to make. Called while holding the
+     * pool lock, the result is consistent with the pool contents.
+     *
+     * @return The remaining quota of each customer, in thread order.
+     */
+    public int[] getCustomerQuotas() {
+        return customers.stream().mapToInt(Customer::getRemaining).toArray();
     }
 
     /**
      * Creates Vendor threads based on the configuration.
      *
-     * @param config     The main configuration object containing the number of vendors.
-     * @param ticketPool The shared TicketPool resource.
+     * @param config       The main configuration object containing the number of vendors.
+     * @param ticketPool   The shared TicketPool resource.
+     * @param ticketSource The source of released ticket ids.
+     * @param quotas       Tickets each vendor has left to release, or null for the configured rate.
      */
-    private void createVendorThreads(MainConfig config, TicketPool ticketPool) {
+    private void createVendorThreads(MainConfig config, TicketPool ticketPool, TicketSource ticketSource,
+                                     int[] quotas) {
+        List<Vendor> created = new ArrayList<>();
         for (int i = 0; i < config.getNumberOfVendors(); i++) {
-            threads.add(new Thread(
-                    new Vendor(ticketPool, config.getTicketReleaseRate(), config.getMaxTicketCapacity(), loggingService),
-                    "Vendor-" + (i + 1)
-            ));
+            Vendor vendor = new Vendor(ticketPool, quotas == null ? config.getTicketReleaseRate() : quotas[i],
+                    config.getMaxTicketCapacity(), ticketSource, loggingService, profiler);
+            created.add(vendor);
+            threads.add(new Thread(vendor, "Vendor-" + (i + 1)));
         }
+        vendors = created;
     }
 
     /**
-     * Creates Customer threads based on the configuration.
+     * Joins the partitioned inventory if it is enabled. When the partition moves to a new sale,
+     * unsold tickets of the previous sale are dropped from the pool, because the new sale
+     * releases the same ids again.
      *
-     * @param config     The main configuration object containing the number of customers.
+     * @param config     The saved main configuration; its id identifies the sale.
      * @param ticketPool The shared TicketPool resource.
+     * @return The partition in partitioned mode, otherwise an unbounded ticket source.
      */
-    private void createCustomerThreads(MainConfig config, TicketPool ticketPool) {
-        for (int i = 0; i < config.getNumberOfCustomers(); i++) {
-            threads.add(new Thread(
-                    new Customer(ticketPool, config.getCustomerRetrievalRate(), loggingService),
-                    "Customer-" + (i + 1)
-            ));
+    private TicketSource joinInventory(MainConfig config, TicketPool ticketPool) {
+        TicketPartition partition = ticketPartition.getIfAvailable();
+        if (partition == null) {
+            return TicketSource.UNBOUNDED;
         }
+        if (partition.join(config.getId(), config.getTotalTickets())) {
+            ticketPool.clear();
+        }
+        return partition;
     }
 
     /**
-     * Starts a scheduled task to log the live ticket count at regular intervals.
+     * Creates Customer threads based on the configuration.
      *
+     * @param config     The main configuration object containing the number of customers.
      * @param ticketPool The shared TicketPool resource.
+     * @param quotas     Retrievals each customer has left to make, or null for the configured rate.
      */
-    private void startLiveCountLogger(TicketPool ticketPool) {
-        liveCountLogger = Executors.newSingleThreadScheduledExecutor();
-        liveCountLogger.scheduleAtFixedRate(() -> {
-            int currentCount = ticketPool.getCurrentTicketCount();
-            String logMessage = "Live Ticket Count: " + currentCount;
-            loggingService.addLog(logMessage);
-        }, 0, LOG_INTERVAL, TimeUnit.SECONDS);
+    private void createCustomerThreads(MainConfig config, TicketPool ticketPool, int[] quotas) {
+        List<Customer> created = new ArrayList<>();
+        for (int i = 0; i < config.getNumberOfCustomers(); i++) {
+            Customer customer = new Customer(ticketPool,
+                    quotas == null ? config.getCustomerRetrievalRate() : quotas[i], loggingService, profiler);
+            created.add(customer);
+            threads.add(new Thread(customer, "Customer-" + (i + 1)));
+        }
+        customers = created;
     }
 
     /**
-     * Stops the live ticket count logger if it is running.
+     * Starts a scheduled task to sample the ticket pool statistics at the configured resolution.
+     *
+     * @param ticketPool The shared TicketPool resource.
      */
-    private void stopLiveCountLogger() {
-        if (liveCountLogger != null) {
-            liveCountLogger.shutdownNow();
-        }
+    private void startStatsSampler(TicketPool ticketPool) {
+        statsSampler = Executors.newSingleThreadScheduledExecutor();
+        statsSampler.scheduleAtFixedRate(() -> statsService.sample(ticketPool),
+                0, statsService.getResolutionMillis(), TimeUnit.MILLISECONDS);
     }
 
     /**
-     * Logs a message using the LoggingService.
-     *
-     * @param message The message to be logged.
+     * Stops the statistics sampler if it is running.
      */
-    private void logMessage(String message) {
-        loggingService.addLog(message);
+    private void stopStatsSampler() {
+        if (statsSampler != null) {
+            statsSampler.shutdownNow();
+        }
     }
 }
@@ -0,0 +1,134 @@
+package com.janindu.ticket.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TicketPartitionTests {
+
+	@Test
+	void nodesNeverReleaseTheSameTicketTwice() throws InterruptedException {
+		long totalTickets = 50_000;
+		InMemoryClusterCoordinator coordinator = new InMemoryClusterCoordinator();
+		List<TicketPartition> nodes = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			TicketPartition node = new TicketPartition("node-" + i, coordinator, 64);
+			node.join(1, totalTickets);
+			nodes.add(node);
+		}
+
+		Set<Long> released = ConcurrentHashMap.newKeySet();
+		AtomicBoolean duplicate = new AtomicBoolean();
+		CountDownLatch halfway = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		for (TicketPartition node : nodes) {
+			for (int t = 0; t < 2; t++) {
+				threads.add(new Thread(() -> {
+					OptionalLong ticketId;
+					while ((ticketId = node.nextTicketId()).isPresent()) {
+						long id = ticketId.getAsLong();
+						if (id < 0 || id >= totalTickets || !released.add(id)) {
+							duplicate.set(true);
+						}
+						if (released.size() >= totalTickets / 2) {
+							halfway.countDown();
+						}
+						if (node.getNodeId().equals("node-0") && halfway.getCount() == 0) {
+							return; // node-0 is lost halfway through the sale
+						}
+					}
+				}));
+			}
+		}
+
+		threads.forEach(Thread::start);
+		halfway.await();
+		coordinator.fail("node-0");
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertThat(duplicate).isFalse();
+		// Everything was sold except what the lost node still owned.
+		assertThat(released.size() + nodes.get(0).remaining()).isEqualTo(totalTickets);
+	}
+
+	@Test
+	void nodeBorrowsInventoryFromPeerWhenUnissuedInventoryRunsOut() {
+		InMemoryClusterCoordinator coordinator = new InMemoryClusterCoordinator();
+		TicketPartition rich = new TicketPartition("rich", coordinator, 100);
+		TicketPartition poor = new TicketPartition("poor", coordinator, 100);
+		rich.join(1, 100);
+		poor.join(1, 100);
+
+		assertThat(rich.nextTicketId()).hasValue(0);
+		assertThat(poor.nextTicketId()).isPresent();
+		assertThat(rich.remaining() + poor.remaining()).isEqualTo(98);
+	}
+
+	@Test
+	void leavingNodeGivesInventoryBack() {
+		InMemoryClusterCoordinator coordinator = new InMemoryClusterCoordinator();
+		TicketPartition first = new TicketPartition("first", coordinator, 10);
+		TicketPartition second = new TicketPartition("second", coordinator, 10);
+		first.join(1, 10);
+		second.join(1, 10);
+
+		assertThat(first.nextTicketId()).hasValue(0);
+		first.leave();
+
+		List<Long> ids = new ArrayList<>();
+		OptionalLong ticketId;
+		while ((ticketId = second.nextTicketId()).isPresent()) {
+			ids.add(ticketId.getAsLong());
+		}
+		assertThat(ids).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L);
+		assertThat(first.nextTicketId()).isEmpty();
+	}
+
+	@Test
+	void newSaleResetsSoldOutInventory() {
+		InMemoryClusterCoordinator coordinator = new InMemoryClusterCoordinator();
+		TicketPartition node = new TicketPartition("node", coordinator, 10);
+		node.join(1, 2);
+		assertThat(node.nextTicketId()).hasValue(0);
+		assertThat(node.nextTicketId()).hasValue(1);
+		assertThat(node.nextTicketId()).isEmpty();
+
+		// Rejoining the same sale keeps it sold out.
+		node.leave();
+		node.join(1, 5);
+		assertThat(node.nextTicketId()).isEmpty();
+
+		// A new sale starts over with its own size.
+		node.leave();
+		node.join(2, 3);
+		List<Long> ids = new ArrayList<>();
+		OptionalLong ticketId;
+		while ((ticketId = node.nextTicketId()).isPresent()) {
+			ids.add(ticketId.getAsLong());
+		}
+		assertThat(ids).containsExactly(0L, 1L, 2L);
+	}
+
+	@Test
+	void returnedTicketIdIsReleasedAgainFirst() {
+		InMemoryClusterCoordinator coordinator = new InMemoryClusterCoordinator();
+		TicketPartition node = new TicketPartition("node", coordinator, 10);
+		node.join(1, 3);
+
+		assertThat(node.nextTicketId()).hasValue(0);
+		node.returnTicketId(0);
+		assertThat(node.remaining()).isEqualTo(3);
+		assertThat(node.nextTicketId()).hasValue(0);
+		assertThat(node.nextTicketId()).hasValue(1);
+	}
+}
@@ -0,0 +1,28 @@
+package com.janindu.ticket.service;
+
+import com.janindu.ticket.model.LockProfile;
+import com.janindu.ticket.model.TicketPool;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentionProfilerTests {
+
+	@Test
+	void reentrantAcquisitionsAreNotRecorded() {
+		ContentionProfiler profiler = new ContentionProfiler(true);
+		TicketPool ticketPool = new TicketPool(new LoggingService(16, 1, profiler), profiler);
+
+		ticketPool.addTicket(1);
+		synchronized (ticketPool) {
+			ticketPool.addTicket(2); // Already holding the pool monitor
+		}
+
+		assertThat(profiler.getSummary())
+				.extracting(LockProfile::getSite)
+				.containsExactly("POOL_ADD", "LOG_APPEND");
+		assertThat(profiler.getSummary())
+				.extracting(LockProfile::getCount)
+				.containsExactly(1L, 2L);
+	}
+}
@@ -0,0 +1,44 @@
+package com.janindu.ticket.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoggingServiceTests {
+
+	@Test
+	void ringKeepsNewestRecordsOldestFirstAfterWrapping() {
+		LoggingService loggingService = new LoggingService(3, 1, new ContentionProfiler(false));
+		for (long ticketId = 1; ticketId <= 5; ticketId++) {
+			loggingService.addLog(LogEvent.TICKET_ADDED, ticketId, 0);
+		}
+
+		assertThat(loggingService.getLogs()).containsExactly(
+				"Added ticket: Ticket-3", "Added ticket: Ticket-4", "Added ticket: Ticket-5");
+	}
+
+	@Test
+	void rendersActorNames() {
+		LoggingService loggingService = new LoggingService(4, 1, new ContentionProfiler(false));
+		int actor = loggingService.registerActor("Vendor-1");
+
+		loggingService.addLog(LogEvent.VENDOR_RELEASED, actor, 7, 1);
+
+		assertThat(loggingService.registerActor("Vendor-1")).isEqualTo(actor);
+		assertThat(loggingService.getLogs()).containsExactly("Vendor-1: Added Ticket-7. Current ticket count: 1");
+	}
+
+	@Test
+	void clearLogsEmptiesRingAndLaterRecordsStartFresh() {
+		LoggingService loggingService = new LoggingService(3, 1, new ContentionProfiler(false));
+		for (int i = 0; i < 4; i++) {
+			loggingService.addLog(LogEvent.SYSTEM_STARTED);
+		}
+
+		loggingService.clearLogs();
+		assertThat(loggingService.getLogs()).isEmpty();
+
+		loggingService.addLog(LogEvent.SYSTEM_STOPPED);
+		assertThat(loggingService.getLogs()).containsExactly("System stopped successfully.");
+	}
+}
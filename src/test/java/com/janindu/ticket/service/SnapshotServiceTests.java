@@ -0,0 +1,66 @@
+package com.janindu.ticket.service;
+
+import com.janindu.ticket.service.SnapshotService.Snapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnapshotServiceTests {
+
+	@Test
+	void snapshotRoundTripsThroughFile(@TempDir Path directory) throws IOException {
+		Path file = directory.resolve("pool.snapshot");
+		Snapshot written = new Snapshot(true, 42, 10, 7, 3,
+				new int[]{2, 0}, new int[]{1, 4, 5}, new long[]{8, 9, 10});
+
+		SnapshotService.write(written, file, directory.resolve("pool.snapshot.tmp"));
+		Snapshot read = SnapshotService.read(file);
+
+		assertThat(read.running).isTrue();
+		assertThat(read.saleId).isEqualTo(42L);
+		assertThat(read.released).isEqualTo(10L);
+		assertThat(read.purchased).isEqualTo(7L);
+		assertThat(read.waits).isEqualTo(3L);
+		assertThat(read.vendorQuotas).containsExactly(2, 0);
+		assertThat(read.customerQuotas).containsExactly(1, 4, 5);
+		assertThat(read.ticketIds).containsExactly(8L, 9L, 10L);
+	}
+
+	@Test
+	void truncatedSnapshotIsRejected(@TempDir Path directory) throws IOException {
+		Path file = directory.resolve("pool.snapshot");
+		byte[] bytes = encode(new Snapshot(false, 1, 2, 1, 0, new int[]{1}, new int[]{1}, new long[]{5, 6}));
+		Files.write(file, Arrays.copyOf(bytes, bytes.length - Long.BYTES - 1));
+
+		assertThatThrownBy(() -> SnapshotService.read(file))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("truncated");
+	}
+
+	@Test
+	void corruptedSnapshotFailsChecksum(@TempDir Path directory) throws IOException {
+		Path file = directory.resolve("pool.snapshot");
+		byte[] bytes = encode(new Snapshot(false, 1, 2, 1, 0, new int[]{1}, new int[]{1}, new long[]{5, 6}));
+		bytes[bytes.length - Long.BYTES - 1] ^= 1; // Flip a bit of the last ticket id
+		Files.write(file, bytes);
+
+		assertThatThrownBy(() -> SnapshotService.read(file))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("checksum mismatch");
+	}
+
+	private static byte[] encode(Snapshot snapshot) {
+		ByteBuffer buffer = SnapshotService.encode(snapshot);
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.get(bytes);
+		return bytes;
+	}
+}
@@ -0,0 +1,72 @@
+package com.janindu.ticket.service;
+
+import com.janindu.ticket.model.StatsBucket;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class StatsServiceTests {
+
+	@Test
+	void samplesInTheSameWindowRollUpIntoOneBucket() {
+		StatsService.Series series = new StatsService.Series(1_000, 250, 10);
+		series.add(1_000, 4, 1, 0, 0);
+		series.add(1_250, 2, 2, 1, 0);
+		series.add(1_500, 6, 0, 2, 1);
+		series.add(1_750, 4, 1, 1, 0);
+		series.add(2_000, 3, 0, 0, 0);
+
+		List<StatsBucket> buckets = series.toBuckets();
+		assertThat(buckets).extracting(StatsBucket::getStart).containsExactly(1_000L, 2_000L);
+
+		StatsBucket first = buckets.get(0);
+		assertThat(first.getSamples()).isEqualTo(4);
+		assertThat(first.getOccupancyAvg()).isEqualTo(4.0);
+		assertThat(first.getOccupancyMin()).isEqualTo(2);
+		assertThat(first.getOccupancyMax()).isEqualTo(6);
+		assertThat(first.getReleased()).isEqualTo(4L);
+		assertThat(first.getPurchased()).isEqualTo(4L);
+		assertThat(first.getWaits()).isEqualTo(1L);
+		assertThat(first.getReleaseRate()).isCloseTo(4.0, within(1e-9));
+	}
+
+	@Test
+	void newestBucketRatesCoverOnlyTheSamplesTakenSoFar() {
+		StatsService.Series series = new StatsService.Series(10_000, 250, 10);
+		series.add(10_000, 0, 5, 0, 0);
+		series.add(10_250, 0, 5, 2, 0);
+
+		StatsBucket head = series.toBuckets().get(0);
+		assertThat(head.getCoveredMillis()).isEqualTo(500L);
+		assertThat(head.getReleaseRate()).isCloseTo(20.0, within(1e-9));
+		assertThat(head.getPurchaseRate()).isCloseTo(4.0, within(1e-9));
+	}
+
+	@Test
+	void olderPartlySampledBucketRatesCoverOnlyItsSamples() {
+		StatsService.Series series = new StatsService.Series(10_000, 250, 10);
+		// The system stopped one second into the first bucket and started again later.
+		for (long now = 10_000; now < 11_000; now += 250) {
+			series.add(now, 0, 1, 0, 0);
+		}
+		series.add(40_000, 0, 0, 0, 0);
+
+		StatsBucket stopped = series.toBuckets().get(0);
+		assertThat(stopped.getCoveredMillis()).isEqualTo(1_000L);
+		assertThat(stopped.getReleaseRate()).isCloseTo(4.0, within(1e-9));
+	}
+
+	@Test
+	void oldestBucketsAreEvictedWhenTheRingIsFull() {
+		StatsService.Series series = new StatsService.Series(1_000, 1_000, 2);
+		series.add(1_000, 1, 0, 0, 0);
+		series.add(2_000, 2, 0, 0, 0);
+		series.add(3_000, 3, 0, 0, 0);
+
+		assertThat(series.toBuckets()).extracting(StatsBucket::getStart)
+				.containsExactly(2_000L, 3_000L);
+	}
+}
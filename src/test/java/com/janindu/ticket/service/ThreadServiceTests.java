@@ -0,0 +1,106 @@
+package com.janindu.ticket.service;
+
+import com.janindu.ticket.cluster.InMemoryClusterCoordinator;
+import com.janindu.ticket.cluster.TicketPartition;
+import com.janindu.ticket.model.MainConfig;
+import com.janindu.ticket.model.TicketPool;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ThreadServiceTests {
+
+	@Test
+	void newSaleDropsUnsoldTicketsOfThePreviousSale() {
+		ContentionProfiler profiler = new ContentionProfiler(false);
+		LoggingService loggingService = new LoggingService(64, 1, profiler);
+		TicketPool ticketPool = new TicketPool(loggingService, profiler);
+		TicketPartition partition = new TicketPartition("node", new InMemoryClusterCoordinator(), 10);
+		ThreadService threadService = new ThreadService(loggingService, new StatsService(250, 10, profiler),
+				new StaticListableBeanFactory(Map.of("ticketPartition", partition)).getBeanProvider(TicketPartition.class),
+				profiler);
+
+		// First sale: tickets 0 to 2 are released and left unsold when the system stops.
+		threadService.configure(sale(1, 5), ticketPool);
+		threadService.startThreads(ticketPool);
+		for (int i = 0; i < 3; i++) {
+			ticketPool.addTicket(partition.nextTicketId().getAsLong());
+		}
+		threadService.stopThreads();
+
+		// Second sale reuses ids 0 to 3, so the old tickets must not stay on sale next to them.
+		threadService.configure(sale(2, 4), ticketPool);
+		threadService.startThreads(ticketPool);
+		assertThat(ticketPool.getAvailableTickets()).isEqualTo(0);
+
+		List<Long> ids = new ArrayList<>();
+		OptionalLong ticketId;
+		while ((ticketId = partition.nextTicketId()).isPresent()) {
+			ticketPool.addTicket(ticketId.getAsLong());
+			ids.add(ticketId.getAsLong());
+		}
+		threadService.stopThreads();
+
+		assertThat(ids).containsExactly(0L, 1L, 2L, 3L);
+		assertThat(ticketPool.getAvailableTickets()).isEqualTo(4);
+	}
+
+	@Test
+	void configuringWhileRunningIsRejectedAndKeepsTheRunningQuotas() {
+		ContentionProfiler profiler = new ContentionProfiler(false);
+		LoggingService loggingService = new LoggingService(64, 1, profiler);
+		TicketPool ticketPool = new TicketPool(loggingService, profiler);
+		ThreadService threadService = new ThreadService(loggingService, new StatsService(250, 10, profiler),
+				new StaticListableBeanFactory(Map.of()).getBeanProvider(TicketPartition.class), profiler);
+
+		threadService.configure(sale(1, 5), ticketPool, new int[]{0}, new int[]{0});
+		threadService.startThreads(ticketPool);
+
+		MainConfig larger = new MainConfig(5, 3, 3, 10, 2, 2, true);
+		larger.setId(2L);
+		assertThatThrownBy(() -> threadService.configure(larger, ticketPool))
+				.isInstanceOf(IllegalStateException.class);
+		assertThat(threadService.getSaleId()).isEqualTo(1L);
+		assertThat(threadService.getVendorQuotas()).containsExactly(0);
+		assertThat(threadService.getCustomerQuotas()).containsExactly(0);
+		threadService.stopThreads();
+	}
+
+	@Test
+	void haltedThreadsStopChangingThePoolButStillReportRunning() throws InterruptedException {
+		ContentionProfiler profiler = new ContentionProfiler(false);
+		LoggingService loggingService = new LoggingService(64, 1, profiler);
+		TicketPool ticketPool = new TicketPool(loggingService, profiler);
+		ThreadService threadService = new ThreadService(loggingService, new StatsService(250, 10, profiler),
+				new StaticListableBeanFactory(Map.of()).getBeanProvider(TicketPartition.class), profiler);
+
+		MainConfig busy = new MainConfig(1_000, 100, 100, 1_000, 2, 2, true);
+		busy.setId(1L);
+		threadService.configure(busy, ticketPool);
+		threadService.startThreads(ticketPool);
+
+		assertThat(threadService.haltThreads(2_000)).isTrue();
+		long released = ticketPool.getReleasedCount();
+		long purchased = ticketPool.getPurchasedCount();
+		Thread.sleep(600);
+
+		assertThat(ticketPool.getReleasedCount()).isEqualTo(released);
+		assertThat(ticketPool.getPurchasedCount()).isEqualTo(purchased);
+		assertThat(threadService.isRunning()).isTrue();
+	}
+
+	// A saved configuration whose vendors and customers have nothing to do,
+	// so the test controls every release.
+	private static MainConfig sale(long id, int totalTickets) {
+		MainConfig config = new MainConfig(totalTickets, 0, 0, 10, 1, 1, true);
+		config.setId(id);
+		return config;
+	}
+}